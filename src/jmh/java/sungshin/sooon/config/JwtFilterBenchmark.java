@@ -0,0 +1,67 @@
+package sungshin.sooon.config;
+
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.io.Encoders;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.concurrent.TimeUnit;
+
+/*
+    요청 하나당 JwtFilter 비용
+        cached   : 같은 토큰으로 계속 요청 (실제 트래픽 대부분. 검증된 토큰 캐시 적중)
+        uncached : 캐시를 0 으로 두고 매번 파싱 + 서명 검증 (첫 요청, 캐시 밀려난 토큰)
+        noToken  : Authorization 헤더 없는 요청 (비교 기준)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class JwtFilterBenchmark {
+    private JwtFilter cachedFilter;
+    private JwtFilter uncachedFilter;
+    private MockHttpServletRequest request;
+    private MockHttpServletRequest anonymousRequest;
+
+    @Setup
+    public void setUp() {
+        String secret = Encoders.BASE64.encode(Keys.secretKeyFor(SignatureAlgorithm.HS512).getEncoded());
+        TokenRevocationStore tokenRevocationStore = new TokenRevocationStore(null, new SimpleMeterRegistry(), 300000, 10000, 300000); // DB 는 쓰지 않음
+        TokenProvider cachedProvider = new TokenProvider(secret, new VerifiedTokenCache(new SimpleMeterRegistry(), 10000), tokenRevocationStore);
+        TokenProvider uncachedProvider = new TokenProvider(secret, new VerifiedTokenCache(new SimpleMeterRegistry(), 0), tokenRevocationStore);
+        cachedFilter = new JwtFilter(cachedProvider);
+        uncachedFilter = new JwtFilter(uncachedProvider);
+
+        String accessToken = cachedProvider.generateTokenDto(1L, "chaeppy@sswu.community", "채피", "ROLE_USER").getAccessToken();
+        request = new MockHttpServletRequest("GET", "/api/v1/posts");
+        request.addHeader(JwtFilter.AUTHORIZATION_HEADER, JwtFilter.BEARER_PREFIX + accessToken);
+        anonymousRequest = new MockHttpServletRequest("GET", "/api/v1/posts");
+    }
+
+    @Benchmark
+    public Object cached() throws Exception {
+        return filter(cachedFilter, request);
+    }
+
+    @Benchmark
+    public Object uncached() throws Exception {
+        return filter(uncachedFilter, request);
+    }
+
+    @Benchmark
+    public Object noToken() throws Exception {
+        return filter(cachedFilter, anonymousRequest);
+    }
+
+    private Object filter(JwtFilter filter, MockHttpServletRequest request) throws Exception {
+        request.removeAttribute(filter.getClass().getName() + ".FILTERED"); // OncePerRequestFilter 표시 지우기
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+        Object authentication = SecurityContextHolder.getContext().getAuthentication();
+        SecurityContextHolder.clearContext();
+        return authentication;
+    }
+}
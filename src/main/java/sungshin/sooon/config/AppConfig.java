@@ -3,37 +3,39 @@ package sungshin.sooon.config;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
-import org.springframework.security.crypto.factory.PasswordEncoderFactories;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.beans.factory.annotation.Value;
-import com.amazonaws.auth.AWSStaticCredentialsProvider;
-import com.amazonaws.auth.BasicAWSCredentials;
-import com.amazonaws.services.s3.AmazonS3Client;
-import com.amazonaws.services.s3.AmazonS3ClientBuilder;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.HashMap;
+import java.util.Map;
 
 @EnableJpaAuditing
+@EnableScheduling
 @Configuration
 public class AppConfig {
+    /*
+        bcrypt 강도(auth.bcrypt.strength)를 올리면 기존 해시는 다음 로그인 성공 때 새 강도로 다시 저장된다.
+            (DelegatingPasswordEncoder.upgradeEncoding -> AccountService.updatePassword)
+        해시 계산은 BoundedPasswordEncoder 의 전용 스레드 풀에서만 돈다.
+     */
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return PasswordEncoderFactories.createDelegatingPasswordEncoder();
-    }
-
-    @Value("${cloud.aws.credentials.access-key}")
-    private String accessKey;
+    public BoundedPasswordEncoder passwordEncoder(MeterRegistry meterRegistry,
+                                                  @Value("${auth.bcrypt.strength:10}") int strength,
+                                                  @Value("${auth.hash.threads:0}") int threads,
+                                                  @Value("${auth.hash.queue-capacity:64}") int queueCapacity,
+                                                  @Value("${auth.hash.timeout-ms:5000}") long timeoutMillis,
+                                                  @Value("${auth.hash.retry-after-seconds:2}") long retryAfterSeconds) {
+        String encodingId = "bcrypt";
+        Map<String, PasswordEncoder> encoders = new HashMap<>();
+        encoders.put(encodingId, new BCryptPasswordEncoder(strength));
+        PasswordEncoder delegate = new DelegatingPasswordEncoder(encodingId, encoders);
 
-    @Value("${cloud.aws.credentials.secret-key}")
-    private String secretKey;
-
-    @Value("${cloud.aws.region.static}")
-    private String region;
-
-    @Bean
-    public AmazonS3Client amazonS3Client() {
-        BasicAWSCredentials awsCreds = new BasicAWSCredentials(accessKey, secretKey);
-        return (AmazonS3Client) AmazonS3ClientBuilder.standard()
-                .withRegion(region)
-                .withCredentials(new AWSStaticCredentialsProvider(awsCreds))
-                .build();
+        // 기본은 코어 절반. 나머지 코어는 다른 요청 처리에 남겨둔다.
+        int poolSize = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        return new BoundedPasswordEncoder(delegate, meterRegistry, poolSize, queueCapacity, timeoutMillis, retryAfterSeconds);
     }
 }
@@ -0,0 +1,97 @@
+package sungshin.sooon.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import sungshin.sooon.exception.ServiceBusyException;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+    비밀번호 해시(bcrypt)를 전용 스레드 풀에서 돌리는 PasswordEncoder
+        bcrypt 는 일부러 느린(수십 ms, CPU 를 꽉 쓰는) 연산이다. 학기 초 로그인이 몰리면 Tomcat 요청 스레드가 전부 bcrypt 를 돌면서
+        피드 같은 읽기 요청까지 밀린다. 해시는 threads 개 스레드에서만 돌리고, 대기열(queueCapacity)이 차면 바로 503 + Retry-After 로 돌려보낸다.
+        그래서 동시에 해시를 기다리는 요청 스레드는 최대 threads + queueCapacity 개이고, 나머지 요청 스레드와 CPU 는 다른 API 가 쓴다.
+
+    PasswordEncoder 빈 자체를 감싸므로 로그인(DaoAuthenticationProvider), 가입, 해시 업그레이드가 모두 이 풀을 거친다.
+ */
+@Slf4j
+public class BoundedPasswordEncoder implements PasswordEncoder {
+    private final PasswordEncoder delegate;
+    private final ThreadPoolExecutor executor;
+    private final long timeoutMillis;
+    private final long retryAfterSeconds;
+    private final Counter rejectedCounter;
+
+    public BoundedPasswordEncoder(PasswordEncoder delegate, MeterRegistry meterRegistry,
+                                  int threads, int queueCapacity, long timeoutMillis, long retryAfterSeconds) {
+        this.delegate = delegate;
+        this.timeoutMillis = timeoutMillis;
+        this.retryAfterSeconds = retryAfterSeconds;
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-hash-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+
+        ExecutorServiceMetrics.monitor(meterRegistry, executor, "password.hash");
+        this.rejectedCounter = meterRegistry.counter("password.hash.rejected");
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return submit(() -> delegate.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return submit(() -> delegate.matches(rawPassword, encodedPassword));
+    }
+
+    // 문자열 비교만 하므로 풀을 거치지 않는다.
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+
+    // @Bean 의 destroy method 로 추론되어 종료 시 호출된다.
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    private <T> T submit(Callable<T> task) {
+        Future<T> future;
+        try {
+            future = executor.submit(task);
+        } catch (RejectedExecutionException e) {
+            rejectedCounter.increment();
+            throw new ServiceBusyException("로그인 요청이 많아 잠시 후 다시 시도해주세요.", retryAfterSeconds);
+        }
+
+        try {
+            return future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            rejectedCounter.increment();
+            throw new ServiceBusyException("로그인 요청이 많아 잠시 후 다시 시도해주세요.", retryAfterSeconds);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(true);
+            throw new IllegalStateException(e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+}
@@ -1,8 +1,11 @@
 package sungshin.sooon.config;
 
+import lombok.RequiredArgsConstructor;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.web.authentication.logout.LogoutSuccessHandler;
 import org.springframework.stereotype.Component;
+import sungshin.sooon.domain.entity.AccountPrincipal;
+import sungshin.sooon.service.RefreshTokenStore;
 
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
@@ -10,13 +13,27 @@ import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
 
 @Component
+@RequiredArgsConstructor
 public class HttpLogoutSuccessHandler implements LogoutSuccessHandler {
+    private final TokenRevocationStore tokenRevocationStore;
+    private final RefreshTokenStore refreshTokenStore;
+
+    /*
+        로그아웃: 요청에 쓴 access token 을 폐기하고 refresh token 도 무효로 만든다.
+            JwtFilter 가 LogoutFilter 앞에서 인증 정보를 채워 두므로 authentication 은 요청한 토큰의 인증 정보다.
+     */
     @Override
     public void onLogoutSuccess(HttpServletRequest request, HttpServletResponse response, Authentication authentication) throws IOException, ServletException {
         if (authentication == null) {
             response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
-        } else {
-            response.setStatus(HttpServletResponse.SC_OK);
+            return;
+        }
+
+        if (authentication.getPrincipal() instanceof AccountPrincipal) {
+            AccountPrincipal principal = (AccountPrincipal) authentication.getPrincipal();
+            tokenRevocationStore.revoke(principal.getTokenId(), principal.getExpiresAt());
         }
+        refreshTokenStore.revoke(authentication.getName());
+        response.setStatus(HttpServletResponse.SC_OK);
     }
 }
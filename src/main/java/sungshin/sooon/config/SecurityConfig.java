@@ -2,13 +2,16 @@ package sungshin.sooon.config;
 
 import lombok.RequiredArgsConstructor;
 import org.springframework.boot.autoconfigure.security.servlet.PathRequest;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.builders.WebSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configuration.WebSecurityConfigurerAdapter;
 import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+import org.springframework.security.web.authentication.logout.LogoutFilter;
 import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
 
 @Configuration
@@ -17,12 +20,19 @@ import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
 public class SecurityConfig extends WebSecurityConfigurerAdapter {
 
     private final HttpLogoutSuccessHandler logoutSuccessHandler;
-    private final TokenProvider tokenProvider;
     private final JwtAuthenticationEntryPoint jwtAuthenticationEntryPoint;
     private final JwtAccessDeniedHandler jwtAccessDeniedHandler;
     private final JwtFilter jwtFilter;
 
 
+    // JwtFilter 는 @Component 라 서블릿 필터로도 자동 등록된다. 시큐리티 체인 안에서만 돌도록 자동 등록은 끈다.
+    @Bean
+    public FilterRegistrationBean<JwtFilter> jwtFilterRegistration(JwtFilter jwtFilter) {
+        FilterRegistrationBean<JwtFilter> registration = new FilterRegistrationBean<>(jwtFilter);
+        registration.setEnabled(false);
+        return registration;
+    }
+
     @Override
     public void configure(WebSecurity web) throws Exception {
         web.ignoring()
@@ -34,7 +44,8 @@ public class SecurityConfig extends WebSecurityConfigurerAdapter {
     @Override
     protected void configure(HttpSecurity http) throws Exception {
         http.authorizeRequests()
-                .mvcMatchers("/api/v1/auth/signup", "/api/v1/auth/login", "/api/v1/auth/check-email", "/api/v1/auth/check-nickname", "/api/v1/images", "/console", "/api/docs").permitAll()
+                .mvcMatchers("/api/v1/auth/signup", "/api/v1/auth/login", "/api/v1/auth/refresh", "/api/v1/auth/check-email", "/api/v1/auth/check-nickname", "/api/v1/images", "/console", "/api/docs").permitAll()
+                .mvcMatchers(HttpMethod.GET, "/api/v1/images/**").permitAll() // 로컬 저장소 이미지 (LocalImageController)
                 .anyRequest().authenticated();
         http.cors()
                 .disable();
@@ -58,8 +69,8 @@ public class SecurityConfig extends WebSecurityConfigurerAdapter {
 
         http.sessionManagement()
                 .sessionCreationPolicy(SessionCreationPolicy.STATELESS);
-        http.apply(new JwtSecurityConfig(tokenProvider));
-
-        http.addFilterBefore(jwtFilter, UsernamePasswordAuthenticationFilter.class);
+        // JwtFilter 는 여기 한 곳에서만 등록한다. (예전에는 JwtSecurityConfig 로 한 번 더 등록돼 요청마다 토큰을 두 번 검증했다)
+        // LogoutFilter 보다 앞에 둬야 로그아웃 핸들러가 요청한 토큰의 인증 정보를 받아 그 토큰을 폐기할 수 있다.
+        http.addFilterBefore(jwtFilter, LogoutFilter.class);
     }
 }
@@ -5,57 +5,85 @@ import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
+import sungshin.sooon.domain.entity.Account;
+import sungshin.sooon.domain.entity.AccountPrincipal;
+import sungshin.sooon.domain.entity.UserAccount;
 import sungshin.sooon.dto.TokenDto;
 
 import java.security.Key;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Date;
+import java.util.UUID;
 import java.util.stream.Collectors;
 
 @Component
 @Slf4j
 public class TokenProvider {
     private static final String AUTHORITIES_KEY = "auth";
+    private static final String ACCOUNT_ID_KEY = "aid";
+    private static final String NICKNAME_KEY = "nick";
     private static final String BEARER_TYPE = "bearer";
 
     private static final long ACCESS_TOKEN_EXPIRE_TIME = 1000 * 60 * 30;            // 30분
     private static final long REFRESH_TOKEN_EXPIRE_TIME = 1000 * 60 * 60 * 24 * 7;  // 7일
 
     private final Key key;
+    private final JwtParser jwtParser; // 스레드 안전. 요청마다 parserBuilder 로 새로 만들지 않는다.
+    private final VerifiedTokenCache verifiedTokenCache;
+    private final TokenRevocationStore tokenRevocationStore;
 
-    public TokenProvider(@Value("${jwt.secret}") String secretKey) {
+    public TokenProvider(@Value("${jwt.secret}") String secretKey, VerifiedTokenCache verifiedTokenCache, TokenRevocationStore tokenRevocationStore) {
         byte[] keyBytes = Decoders.BASE64.decode(secretKey);
         this.key = Keys.hmacShaKeyFor(keyBytes);
+        this.jwtParser = Jwts.parserBuilder().setSigningKey(key).build();
+        this.verifiedTokenCache = verifiedTokenCache;
+        this.tokenRevocationStore = tokenRevocationStore;
     }
 
+    // 로그인(AuthenticationManager 인증) 결과로 토큰 생성. principal 은 AccountService.loadUserByUsername 이 만든 UserAccount
     public TokenDto generateTokenDto(Authentication authentication) {
         // 권한들 가져오기
         String authorities = authentication.getAuthorities().stream()
                 .map(GrantedAuthority::getAuthority)
                 .collect(Collectors.joining(","));
 
+        Account account = ((UserAccount) authentication.getPrincipal()).getAccount();
+        return generateTokenDto(account.getId(), authentication.getName(), account.getNickname(), authorities);
+    }
+
+    /*
+        계정 id, 닉네임을 클레임에 같이 넣는다.
+        요청마다 토큰만 보고 @CurrentUser 를 만들 수 있으므로 email 로 계정을 조회할 필요가 없다.
+     */
+    public TokenDto generateTokenDto(long accountId, String email, String nickname, String authorities) {
         long now = (new Date()).getTime();
 
         // Access Token 생성
         Date accessTokenExpiresIn = new Date(now + ACCESS_TOKEN_EXPIRE_TIME);
         String accessToken = Jwts.builder()
-                .setSubject(authentication.getName())       // payload "sub": "name"
+                .setSubject(email)                          // payload "sub": "name"
+                .setId(UUID.randomUUID().toString())        // payload "jti": 로그아웃 시 이 토큰만 폐기하는 데 사용
                 .claim(AUTHORITIES_KEY, authorities)        // payload "auth": "ROLE_USER"
+                .claim(ACCOUNT_ID_KEY, accountId)           // payload "aid": 1
+                .claim(NICKNAME_KEY, nickname)              // payload "nick": "채피"
                 .setExpiration(accessTokenExpiresIn)        // payload "exp": 1516239022 (예시)
                 .signWith(key, SignatureAlgorithm.HS512)    // header "alg": "HS512"
                 .compact();
 
         // Refresh Token 생성
+        // 갱신할 계정을 찾을 수 있도록 sub 에 email, 같은 초에 두 번 발급해도 다른 토큰이 되도록 jti 를 넣는다.
+        Date refreshTokenExpiresIn = new Date(now + REFRESH_TOKEN_EXPIRE_TIME);
         String refreshToken = Jwts.builder()
-                .setExpiration(new Date(now + REFRESH_TOKEN_EXPIRE_TIME))
+                .setSubject(email)
+                .setId(UUID.randomUUID().toString())
+                .setExpiration(refreshTokenExpiresIn)
                 .signWith(key, SignatureAlgorithm.HS512)
                 .compact();
 
@@ -64,17 +92,49 @@ public class TokenProvider {
                 .accessToken(accessToken)
                 .accessTokenExpiresIn(accessTokenExpiresIn.getTime())
                 .refreshToken(refreshToken)
+                .refreshTokenExpiresIn(refreshTokenExpiresIn.getTime())
                 .build();
     }
 
-    public Authentication getAuthentication(String accessToken) {
-        // 토큰 복호화
-        Claims claims = parseClaims(accessToken);
+    /*
+        access token 검증 + 인증 정보 생성. 유효하지 않은 토큰이면 null
+            예전에는 validateToken, getAuthentication 이 각각 파싱해서 요청마다 서명 검증(HMAC)을 두 번 했다.
+            이제 한 번만 파싱하고, 검증된 토큰은 exp 까지 VerifiedTokenCache 에서 바로 꺼낸다.
+     */
+    public Authentication authenticate(String accessToken) {
+        String digest = VerifiedTokenCache.digest(accessToken);
+        VerifiedTokenCache.Entry entry = verifiedTokenCache.get(digest);
+        if (entry == null) {
+            Claims claims = parseClaims(accessToken);
+            if (claims == null) {
+                return null;
+            }
+            if (claims.get(AUTHORITIES_KEY) == null) {
+                log.info("권한 정보가 없는 토큰입니다.");
+                return null;
+            }
+
+            entry = toEntry(claims);
+            verifiedTokenCache.put(digest, entry);
+        }
+
+        // 로그아웃한 토큰 (캐시에 있어도 매번 확인. 메모리만 본다)
+        if (tokenRevocationStore.isRevoked(entry.getTokenId(), entry.getExpiresAt())) {
+            return null;
+        }
+        return entry.toAuthentication();
+    }
 
-        if (claims.get(AUTHORITIES_KEY) == null) {
-            throw new RuntimeException("권한 정보가 없는 토큰입니다.");
+    // 유효한 refresh token 이면 계정 email, 아니면 null (access token 이나 sub 가 없던 예전 refresh token 도 null)
+    public String getRefreshTokenSubject(String refreshToken) {
+        Claims claims = parseClaims(refreshToken);
+        if (claims == null || claims.get(AUTHORITIES_KEY) != null) {
+            return null;
         }
+        return claims.getSubject();
+    }
 
+    private VerifiedTokenCache.Entry toEntry(Claims claims) {
         // 클레임에서 권한 정보 가져오기
         Collection<? extends GrantedAuthority> authorities =
                 Arrays.stream(claims.get(AUTHORITIES_KEY).toString().split(","))
@@ -82,15 +142,19 @@ public class TokenProvider {
                         .collect(Collectors.toList());
 
         // UserDetails 객체를 만들어서 Authentication 리턴
-        UserDetails principal = new User(claims.getSubject(), "", authorities);
+        // aid 클레임이 없는 예전 토큰은 email 만 들고 있는 User 로 만든다. (AccountService.getCurrentAccount 에서 email 로 조회)
+        UserDetails principal = claims.get(ACCOUNT_ID_KEY) == null
+                ? new User(claims.getSubject(), "", authorities)
+                : new AccountPrincipal(claims.get(ACCOUNT_ID_KEY, Long.class), claims.getSubject(), claims.get(NICKNAME_KEY, String.class),
+                claims.getId(), claims.getExpiration().getTime(), authorities);
 
-        return new UsernamePasswordAuthenticationToken(principal, "", authorities);
+        return new VerifiedTokenCache.Entry(principal, authorities, claims.getId(), claims.getExpiration().getTime());
     }
 
-    public boolean validateToken(String token) {
+    // 서명, 만료 검증까지 끝난 클레임. 유효하지 않으면 null
+    private Claims parseClaims(String token) {
         try {
-            Jwts.parserBuilder().setSigningKey(key).build().parseClaimsJws(token);
-            return true;
+            return jwtParser.parseClaimsJws(token).getBody();
         } catch (io.jsonwebtoken.security.SecurityException | MalformedJwtException e) {
             log.info("잘못된 JWT 서명입니다.");
         } catch (ExpiredJwtException e) {
@@ -100,14 +164,6 @@ public class TokenProvider {
         } catch (IllegalArgumentException e) {
             log.info("JWT 토큰이 잘못되었습니다.");
         }
-        return false;
-    }
-
-    private Claims parseClaims(String accessToken) {
-        try {
-            return Jwts.parserBuilder().setSigningKey(key).build().parseClaimsJws(accessToken).getBody();
-        } catch (ExpiredJwtException e) {
-            return e.getClaims();
-        }
+        return null;
     }
 }
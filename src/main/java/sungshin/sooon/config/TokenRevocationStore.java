@@ -0,0 +1,132 @@
+package sungshin.sooon.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import sungshin.sooon.domain.entity.RevokedToken;
+import sungshin.sooon.domain.repository.RevokedTokenRepository;
+import sungshin.sooon.util.BloomFilter;
+
+import javax.annotation.PostConstruct;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+    로그아웃한 access token(jti) 목록
+        access token 은 exp 까지 서명만으로 유효하므로, 로그아웃한 토큰을 막으려면 요청마다 폐기 여부를 봐야 한다.
+        DB 를 보면 요청마다 쿼리가 하나 늘어나므로 메모리에서만 확인한다.
+
+    토큰 만료 시각(exp) 기준으로 bucketMillis 단위 버킷에 나눠 담는다.
+        확인: 토큰의 exp 로 버킷 하나만 보면 된다. 버킷이 없거나 Bloom filter 에 없으면 바로 false, 있을 때만 정확한 Set 으로 확인
+        만료: 버킷의 모든 토큰이 만료되면 버킷째로 버린다. 토큰마다 만료를 따로 관리하지 않는다.
+
+    영속화
+        폐기할 때 revoked_token 에 한 행 쓴다. (로그아웃은 드물어서 바로 쓴다)
+        기동할 때 아직 만료되지 않은 행으로 다시 채우고, syncInterval 마다 다른 인스턴스에서 폐기한 토큰(revoked_at 이후)을 가져온다.
+            revoked_at 은 폐기한 인스턴스의 시계로 찍히고 커밋이 늦게 보일 수도 있다. 그래서 커서는 본 행의 최댓값이 아니라
+            이 인스턴스가 지난번 sync 를 시작한 시각에서 syncMargin(기본 5분) 만큼 더 앞으로 잡는다.
+            시계 차이나 커밋 지연이 syncMargin 안이면 놓치지 않는다. 로그아웃은 드물어서 겹쳐 읽는 행은 몇 개 안 되고 add 는 멱등이다.
+ */
+@Slf4j
+@Component
+public class TokenRevocationStore {
+    private final RevokedTokenRepository revokedTokenRepository;
+    private final long bucketMillis;
+    private final int expectedPerBucket;
+    private final long syncMarginMillis;
+
+    private final Map<Long, Bucket> buckets = new ConcurrentHashMap<>();
+    private volatile long lastSyncStartedAt; // 이 인스턴스 시계 기준
+
+    private final Counter revokedCounter;
+    private final Counter rejectedCounter;
+
+    public TokenRevocationStore(RevokedTokenRepository revokedTokenRepository,
+                                MeterRegistry meterRegistry,
+                                @Value("${auth.revocation.bucket-ms:300000}") long bucketMillis,
+                                @Value("${auth.revocation.expected-per-bucket:10000}") int expectedPerBucket,
+                                @Value("${auth.revocation.sync-margin-ms:300000}") long syncMarginMillis) {
+        this.revokedTokenRepository = revokedTokenRepository;
+        this.bucketMillis = bucketMillis;
+        this.expectedPerBucket = expectedPerBucket;
+        this.syncMarginMillis = syncMarginMillis;
+
+        this.revokedCounter = meterRegistry.counter("token.revocation.revoked");
+        this.rejectedCounter = meterRegistry.counter("token.revocation.rejected");
+        Gauge.builder("token.revocation.size", this, TokenRevocationStore::size).register(meterRegistry);
+    }
+
+    // 요청을 받기 전에 채워야 재기동 직후 로그아웃한 토큰이 통과하지 않으므로 ApplicationReadyEvent 대신 빈 초기화 때 읽는다.
+    @PostConstruct
+    public void load() {
+        sync();
+        log.info("폐기된 토큰 로딩 완료: {}개", size());
+    }
+
+    // 로그아웃. tokenId 가 없는 예전 토큰은 폐기할 수 없다. (exp 까지 유효)
+    public void revoke(String tokenId, long expiresAt) {
+        if (tokenId == null || expiresAt <= System.currentTimeMillis()) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        add(tokenId, expiresAt);
+        revokedTokenRepository.save(RevokedToken.builder().tokenId(tokenId).expiresAt(expiresAt).revokedAt(now).build());
+        revokedCounter.increment();
+    }
+
+    public boolean isRevoked(String tokenId, long expiresAt) {
+        if (tokenId == null) {
+            return false;
+        }
+        Bucket bucket = buckets.get(expiresAt / bucketMillis);
+        if (bucket == null || !bucket.bloomFilter.mightContain(tokenId) || !bucket.tokenIds.contains(tokenId)) {
+            return false;
+        }
+        rejectedCounter.increment();
+        return true;
+    }
+
+    @Scheduled(fixedDelayString = "${auth.revocation.sync-interval-ms:5000}", initialDelayString = "${auth.revocation.sync-interval-ms:5000}")
+    public void sync() {
+        long startedAt = System.currentTimeMillis();
+        long since = lastSyncStartedAt == 0 ? 0 : Math.max(0, lastSyncStartedAt - syncMarginMillis); // 처음(기동)에는 전부
+        for (RevokedToken revokedToken : revokedTokenRepository.findRevokedAfter(since, startedAt)) {
+            add(revokedToken.getTokenId(), revokedToken.getExpiresAt());
+        }
+        lastSyncStartedAt = startedAt;
+    }
+
+    // 모든 토큰이 만료된 버킷은 버리고, DB 에서도 만료된 행을 지운다.
+    @Transactional
+    @Scheduled(fixedDelayString = "${auth.revocation.sweep-interval-ms:600000}")
+    public void sweep() {
+        long now = System.currentTimeMillis();
+        buckets.keySet().removeIf(key -> (key + 1) * bucketMillis <= now);
+        revokedTokenRepository.deleteExpired(now);
+    }
+
+    public int size() {
+        return buckets.values().stream().mapToInt(bucket -> bucket.tokenIds.size()).sum();
+    }
+
+    private void add(String tokenId, long expiresAt) {
+        Bucket bucket = buckets.computeIfAbsent(expiresAt / bucketMillis, key -> new Bucket(expectedPerBucket));
+        bucket.tokenIds.add(tokenId);
+        bucket.bloomFilter.put(tokenId);
+    }
+
+    private static class Bucket {
+        private final BloomFilter bloomFilter;
+        private final Set<String> tokenIds = ConcurrentHashMap.newKeySet();
+
+        Bucket(int expected) {
+            this.bloomFilter = new BloomFilter(expected, 0.01);
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package sungshin.sooon.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/*
+    서명 검증이 끝난 access token 캐시
+        같은 토큰이 만료(30분)될 때까지 요청마다 반복해서 들어온다. 한 번 검증한 토큰은
+        토큰 SHA-256 -> (principal, 권한, exp) 로 들고 있다가 HMAC 검증, base64/JSON 파싱 없이 바로 인증 정보를 만든다.
+
+    키는 토큰 원문이 아니라 digest 라서 메모리에 토큰이 그대로 남지 않는다.
+    exp 가 지난 항목은 꺼낼 때 버리므로 만료된 토큰이 캐시 때문에 통과하는 일은 없다.
+    maxEntries 를 넘으면 가장 오래 안 쓰인 토큰부터 버린다. (LRU)
+ */
+@Component
+public class VerifiedTokenCache {
+    private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+
+    private final Map<String, Entry> entries; // this 로 동기화
+
+    private final Counter hitCounter;
+    private final Counter missCounter;
+
+    public VerifiedTokenCache(MeterRegistry meterRegistry,
+                              @Value("${jwt.cache.max-entries:10000}") int maxEntries) {
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+
+        this.hitCounter = meterRegistry.counter("jwt.verified.cache.requests", "result", "hit");
+        this.missCounter = meterRegistry.counter("jwt.verified.cache.requests", "result", "miss");
+        Gauge.builder("jwt.verified.cache.size", this, VerifiedTokenCache::size).register(meterRegistry);
+    }
+
+    public static String digest(String token) {
+        MessageDigest sha256 = SHA_256.get();
+        sha256.reset();
+        return Base64.getEncoder().encodeToString(sha256.digest(token.getBytes(StandardCharsets.US_ASCII)));
+    }
+
+    // 검증된 적 있고 아직 만료되지 않은 토큰이면 그 인증 정보, 아니면 null
+    public Entry get(String tokenDigest) {
+        Entry entry;
+        synchronized (this) {
+            entry = entries.get(tokenDigest);
+            if (entry != null && entry.isExpired(System.currentTimeMillis())) {
+                entries.remove(tokenDigest);
+                entry = null;
+            }
+        }
+        (entry == null ? missCounter : hitCounter).increment();
+        return entry;
+    }
+
+    public synchronized void put(String tokenDigest, Entry entry) {
+        entries.put(tokenDigest, entry);
+    }
+
+    public synchronized void evict(String tokenDigest) {
+        entries.remove(tokenDigest);
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public static class Entry {
+        private final UserDetails principal;
+        private final Collection<? extends GrantedAuthority> authorities;
+        private final String tokenId;
+        private final long expiresAt;
+
+        public Entry(UserDetails principal, Collection<? extends GrantedAuthority> authorities, String tokenId, long expiresAt) {
+            this.principal = principal;
+            this.authorities = authorities;
+            this.tokenId = tokenId;
+            this.expiresAt = expiresAt;
+        }
+
+        public String getTokenId() {
+            return tokenId;
+        }
+
+        public long getExpiresAt() {
+            return expiresAt;
+        }
+
+        boolean isExpired(long now) {
+            return now >= expiresAt;
+        }
+
+        // 요청마다 새 Authentication 을 만든다. (필터 체인에서 details 등을 바꿀 수 있으므로 공유하지 않음)
+        public Authentication toAuthentication() {
+            return new UsernamePasswordAuthenticationToken(principal, "", authorities);
+        }
+    }
+}
@@ -8,6 +8,8 @@ import org.springframework.web.bind.annotation.*;
 import sungshin.sooon.dto.AccountResponseDto;
 import sungshin.sooon.dto.LoginRequestDto;
 import sungshin.sooon.dto.SignupRequestDto;
+import sungshin.sooon.dto.TokenDto;
+import sungshin.sooon.dto.TokenRefreshRequestDto;
 import sungshin.sooon.service.AccountService;
 
 import javax.validation.Valid;
@@ -48,4 +50,10 @@ public class AccountController {
         return ResponseEntity.ok(accountService.login(loginRequestDto));
     }
 
+    // 토큰 갱신. 응답의 refreshToken 으로 바꿔 저장해야 한다. (보낸 refresh token 은 더 이상 쓸 수 없음)
+    @PostMapping("/refresh")
+    public ResponseEntity<TokenDto> refresh(@Valid @RequestBody TokenRefreshRequestDto tokenRefreshRequestDto) {
+        return ResponseEntity.ok(accountService.refresh(tokenRefreshRequestDto.getRefreshToken()));
+    }
+
 }
@@ -4,26 +4,36 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.web.bind.annotation.PostMapping;
-import org.springframework.web.bind.annotation.RequestMapping;
-import org.springframework.web.bind.annotation.RequestPart;
-import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
-import sungshin.sooon.util.S3Uploader;
+import sungshin.sooon.dto.ImageVariantResponseDto;
+import sungshin.sooon.service.ImageVariantPipeline;
+import sungshin.sooon.util.ImageStorage;
+import sungshin.sooon.util.StoredImage;
 
 import java.io.IOException;
 import java.util.List;
+import java.util.stream.Collectors;
 
 @Slf4j
 @RequiredArgsConstructor
 @RestController
 @RequestMapping("/api/v1/images")
 public class ImageController { //https://developers.kakao.com/docs/latest/ko/kakaostory/rest-api#upload-image참고. 이미지업로드와 스토리쓰기를 다른 api로 받음.
-    private final S3Uploader s3Uploader;
+    private final ImageStorage imageStorage;
+    private final ImageVariantPipeline imageVariantPipeline;
 
+    // 원본 URL 을 바로 돌려주고, 축소본(썸네일)은 뒤에서 만든다. (진행 상황: GET /variants?url=원본 URL)
     @PostMapping("")
     public ResponseEntity upload(@RequestPart("files") List<MultipartFile> files) throws IOException {
-        List<String> uploadImageUrls = s3Uploader.upload(files, "static");
+        List<StoredImage> uploadImages = imageStorage.upload(files, "static");
+        uploadImages.forEach(imageVariantPipeline::submit);
+        List<String> uploadImageUrls = uploadImages.stream().map(StoredImage::getUrl).collect(Collectors.toList());
         return new ResponseEntity(uploadImageUrls, HttpStatus.CREATED);
     }
+
+    @GetMapping("/variants")
+    public ResponseEntity<ImageVariantResponseDto> findVariants(@RequestParam String url) {
+        return ResponseEntity.ok(imageVariantPipeline.findProgress(url));
+    }
 }
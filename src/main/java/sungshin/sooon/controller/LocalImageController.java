@@ -0,0 +1,168 @@
+package sungshin.sooon.controller;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import sungshin.sooon.util.LocalImageStorage;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.List;
+
+/*
+    로컬 저장소(storage.type=local) 이미지 서빙: GET /api/v1/images/{dir}/{file}
+        byte[] 로 읽어 돌려주면 이미지마다 힙을 거쳐 복사된다. 대신 Tomcat sendfile 로 커널이 파일을 소켓으로 바로 보낸다. (FileChannel.transferTo)
+        sendfile 을 쓸 수 없는 커넥터면 FileChannel.transferTo 로 응답 스트림에 흘려보낸다. 어느 쪽도 파일 전체를 메모리에 올리지 않는다.
+
+    저장된 파일은 이름이 UUID 라 내용이 바뀌지 않는다.
+        그래서 (크기, 수정 시각)으로 만든 강한 ETag 와 1년 immutable 캐시를 준다. If-None-Match 가 맞으면 304
+        Range 는 범위 하나만 지원한다. 여러 범위를 요청하면 전체(200)를 준다. If-Range 가 ETag 와 다르면 Range 는 무시한다.
+ */
+@RestController
+@RequestMapping("/api/v1/images")
+@ConditionalOnProperty(name = "storage.type", havingValue = "local")
+public class LocalImageController {
+    private static final String PATH_PREFIX = "/api/v1/images/";
+    private static final String CACHE_CONTROL = "public, max-age=31536000, immutable";
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private final LocalImageStorage localImageStorage;
+    private final Counter sendfileCounter;
+    private final Counter streamCounter;
+    private final Counter notModifiedCounter;
+
+    public LocalImageController(LocalImageStorage localImageStorage, MeterRegistry meterRegistry) {
+        this.localImageStorage = localImageStorage;
+        this.sendfileCounter = meterRegistry.counter("image.serve.requests", "result", "sendfile");
+        this.streamCounter = meterRegistry.counter("image.serve.requests", "result", "stream");
+        this.notModifiedCounter = meterRegistry.counter("image.serve.requests", "result", "not_modified");
+    }
+
+    @GetMapping("/**")
+    public void serve(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        String uri = request.getRequestURI().substring(request.getContextPath().length());
+        String key = uri.substring(Math.min(uri.length(), PATH_PREFIX.length()));
+        Path path = key.isEmpty() || key.endsWith(".part") ? null : localImageStorage.resolve(key); // .part: 아직 쓰는 중인 파일
+        if (path == null || !Files.isRegularFile(path)) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+
+        BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        long length = attributes.size();
+        String etag = "\"" + Long.toHexString(length) + "-" + Long.toHexString(attributes.lastModifiedTime().toMillis()) + "\"";
+
+        response.setHeader(HttpHeaders.ETAG, etag);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, CACHE_CONTROL);
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+
+        if (matches(request.getHeader(HttpHeaders.IF_NONE_MATCH), etag)) {
+            notModifiedCounter.increment();
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+
+        long start = 0;
+        long end = length - 1;
+        HttpRange range = singleRange(request, etag);
+        if (range != null) {
+            if (length == 0) {
+                rangeNotSatisfiable(response, length);
+                return;
+            }
+            try {
+                start = range.getRangeStart(length);
+                end = range.getRangeEnd(length);
+            } catch (IllegalArgumentException e) { // 파일 밖을 가리키는 범위
+                rangeNotSatisfiable(response, length);
+                return;
+            }
+            response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+        }
+
+        response.setContentType(MediaTypeFactory.getMediaType(path.getFileName().toString()).orElse(MediaType.APPLICATION_OCTET_STREAM).toString());
+        response.setContentLengthLong(end - start + 1);
+        if ("HEAD".equals(request.getMethod()) || end < start) {
+            return;
+        }
+
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            // 본문은 Tomcat 이 요청 처리가 끝난 뒤 sendfile 로 보낸다.
+            request.setAttribute(SENDFILE_FILENAME, path.toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, end + 1); // exclusive
+            sendfileCounter.increment();
+            return;
+        }
+
+        streamCounter.increment();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            WritableByteChannel target = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            long remaining = end - start + 1;
+            while (remaining > 0) {
+                long transferred = channel.transferTo(position, remaining, target);
+                if (transferred <= 0) {
+                    break;
+                }
+                position += transferred;
+                remaining -= transferred;
+            }
+        }
+    }
+
+    // Range 헤더가 범위 하나이고 If-Range 조건을 만족할 때만 그 범위. 아니면 null (전체 응답)
+    private static HttpRange singleRange(HttpServletRequest request, String etag) {
+        String rangeHeader = request.getHeader(HttpHeaders.RANGE);
+        if (rangeHeader == null) {
+            return null;
+        }
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange != null && !ifRange.equals(etag)) {
+            return null;
+        }
+        try {
+            List<HttpRange> ranges = HttpRange.parseRanges(rangeHeader);
+            return ranges.size() == 1 ? ranges.get(0) : null;
+        } catch (IllegalArgumentException e) { // 형식이 잘못된 Range 는 무시한다.
+            return null;
+        }
+    }
+
+    private static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String value = candidate.trim();
+            if (value.equals("*") || value.equals(etag) || value.equals("W/" + etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void rangeNotSatisfiable(HttpServletResponse response, long length) {
+        response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+        response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+    }
+}
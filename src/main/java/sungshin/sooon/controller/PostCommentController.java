@@ -7,14 +7,13 @@ import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 import sungshin.sooon.domain.entity.Account;
 import sungshin.sooon.domain.entity.CurrentUser;
-import sungshin.sooon.domain.entity.Post;
 import sungshin.sooon.dto.CommentRequestDto;
-import sungshin.sooon.dto.CommentResponseDto;
+import sungshin.sooon.dto.PagingCommentResponseDto;
 import sungshin.sooon.service.PostCommentService;
-import sungshin.sooon.service.PostService;
 
 import javax.validation.Valid;
-import java.util.List;
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
 
 @RestController
 @RequiredArgsConstructor
@@ -25,39 +24,34 @@ import java.util.List;
 @Validated
 public class PostCommentController {
     private final PostCommentService postCommentService;
-    private final PostService postService;
 
+    // 첫 페이지는 cursor 없이, 이후는 응답의 nextCursor 를 넘긴다.
     @GetMapping("")
-    public ResponseEntity findAllByPost(@PathVariable long postId) {
-        Post post = postService.findByIdOrThrowNotFoundException(postId);
-        List<CommentResponseDto> postComments = postCommentService.findAllByPost(post);
+    public ResponseEntity findAllByPost(@PathVariable long postId, @RequestParam(required = false) String cursor, @RequestParam(defaultValue = "20") @Min(1) @Max(100) int size) {
+        PagingCommentResponseDto postComments = postCommentService.findAllByPost(postId, cursor, size); // 글이 없으면 NotFound
         return new ResponseEntity(postComments, HttpStatus.OK);
     }
 
     @GetMapping("/{commentId}")
     public ResponseEntity findById(@PathVariable long postId, @PathVariable long commentId) {
-        postService.findByIdOrThrowNotFoundException(postId);
-        return new ResponseEntity(postCommentService.findById(commentId), HttpStatus.OK);
+        return new ResponseEntity(postCommentService.findById(postId, commentId), HttpStatus.OK);
     }
 
     @PostMapping("")
     public ResponseEntity save(@CurrentUser Account account, @PathVariable long postId, @Valid @RequestBody CommentRequestDto CommentRequestDto) {
-        Post post = postService.findByIdOrThrowNotFoundException(postId);
-        return new ResponseEntity(postCommentService.save(account, post, CommentRequestDto), HttpStatus.CREATED);
+        return new ResponseEntity(postCommentService.save(account, postId, CommentRequestDto), HttpStatus.CREATED);
     }
 
 
     @PutMapping("/{commentId}")
     public ResponseEntity update(@CurrentUser Account account, @PathVariable long postId, @PathVariable long commentId, @Valid @RequestBody CommentRequestDto CommentRequestDto) {
-        Post post = postService.findByIdOrThrowNotFoundException(postId);
-        return new ResponseEntity(postCommentService.update(account, post, commentId, CommentRequestDto), HttpStatus.OK);
+        return new ResponseEntity(postCommentService.update(account, postId, commentId, CommentRequestDto), HttpStatus.OK);
     }
 
 
     @DeleteMapping("/{commentId}")
     public ResponseEntity delete(@CurrentUser Account account, @PathVariable long postId, @PathVariable long commentId) {
-        postService.findByIdOrThrowNotFoundException(postId);
-        postCommentService.delete(account, commentId);
+        postCommentService.delete(account, postId, commentId);
         return new ResponseEntity(HttpStatus.NO_CONTENT);
     }
 }
@@ -2,17 +2,24 @@ package sungshin.sooon.controller;
 
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
 import sungshin.sooon.domain.entity.Account;
 import sungshin.sooon.domain.entity.CurrentUser;
+import sungshin.sooon.dto.PagingPostResponseDto;
 import sungshin.sooon.dto.PostRequestDto;
 import sungshin.sooon.dto.PostResponseDto;
+import sungshin.sooon.service.FeedPageCache;
 import sungshin.sooon.service.PostService;
 
 import javax.validation.Valid;
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotBlank;
 import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
 
 @RestController
 @RequiredArgsConstructor
@@ -20,6 +27,7 @@ import javax.validation.constraints.NotNull;
 @Validated
 public class PostController {
     private final PostService postService;
+    private final FeedPageCache feedPageCache;
 
     /*
     //내가 쓴 글 조회
@@ -30,12 +38,34 @@ public class PostController {
         return new ResponseEntity(posts,HttpStatus.OK);
     }*/
 
+    // page 를 넘기면 기존 offset 페이징, page 없이 호출하면 커서 페이징 (첫 페이지는 cursor 생략, 이후는 응답의 nextCursor 사용)
     @GetMapping("")
-    public ResponseEntity findAllByPaging(@RequestParam @NotNull Integer page, @RequestParam @NotNull Integer size, @RequestParam(defaultValue = "createdAt") String order) {
-        return new ResponseEntity(postService.findAllOrderBy(page, size, order), HttpStatus.OK);
+    public ResponseEntity findAllByPaging(@CurrentUser Account account, @RequestParam(required = false) @Min(0) Integer page, @RequestParam(required = false) String cursor, @RequestParam @NotNull @Min(1) @Max(100) Integer size, @RequestParam(defaultValue = "createdAt") String order) {
+        // 트래픽이 몰리는 앞쪽 페이지는 직렬화된 응답을 그대로 돌려준다. (DB, Jackson 모두 생략)
+        // 캐시는 사용자와 무관한 내용만 들고 있고, likedByMe 는 응답할 때 페이지 단위로 한 번에 확인해서 끼워 넣는다.
+        if (feedPageCache.isCacheable(page, cursor, size)) {
+            byte[] body = feedPageCache.get(order, page,
+                    () -> page != null
+                            ? postService.findAllOrderBy(page, size, order)
+                            : postService.findAllByCursor(null, size, order),
+                    postIds -> postService.findLikedPostIds(account, postIds));
+            return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+        }
+
+        PagingPostResponseDto posts = page != null
+                ? postService.findAllOrderBy(page, size, order)
+                : postService.findAllByCursor(cursor, size, order);
+        return new ResponseEntity(postService.markLikedByMe(account, posts), HttpStatus.OK);
     }
 
 
+    // 제목, 본문 검색. 관련도 순이며 다음 페이지는 응답의 nextCursor 를 넘긴다.
+    @GetMapping("/search")
+    public ResponseEntity search(@CurrentUser Account account, @RequestParam @NotBlank @Size(max = 100) String q, @RequestParam(required = false) String cursor, @RequestParam(defaultValue = "20") @Min(1) @Max(100) int size) {
+        PagingPostResponseDto posts = postService.search(q, cursor, size);
+        return new ResponseEntity(postService.markLikedByMe(account, posts), HttpStatus.OK);
+    }
+
     @GetMapping("/{postId}")
     public ResponseEntity findById(@PathVariable long postId) {
         PostResponseDto post = postService.findById(postId);
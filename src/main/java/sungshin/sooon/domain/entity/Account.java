@@ -15,6 +15,11 @@ import java.util.List;
 @Builder
 @AllArgsConstructor
 @NoArgsConstructor
+// check-email, check-nickname 확인(AccountNameFilter 가 "있을 수도" 라고 할 때)과 로그인 조회가 인덱스로 끝나도록 unique 제약
+@Table(uniqueConstraints = {
+        @UniqueConstraint(name = "uk_account_email", columnNames = "email"),
+        @UniqueConstraint(name = "uk_account_nickname", columnNames = "nickname")
+})
 /*
     @DynamicUpdate 변경된 컬럼만 찾아서 업데이트를 진행한다.
         변경된 컬럼만 찾는다.
@@ -110,4 +115,9 @@ public class Account {
             inverseJoinColumns = @JoinColumn(name = "post_id"))
     private List<Post> likePosts = new ArrayList<>();
      */
+
+    // 인코딩된 비밀번호로 교체 (해시 강도 업그레이드)
+    public void changePassword(String encodedPassword) {
+        this.password = encodedPassword;
+    }
 }
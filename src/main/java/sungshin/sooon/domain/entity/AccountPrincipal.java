@@ -0,0 +1,24 @@
+package sungshin.sooon.domain.entity;
+
+import lombok.Getter;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+
+import java.util.Collection;
+
+// JWT 클레임만으로 만든 인증 주체. 요청마다 DB 에서 계정을 읽지 않는다. (username 은 email)
+@Getter
+public class AccountPrincipal extends User {
+    private final long accountId;
+    private final String nickname;
+    private final String tokenId;   // access token jti. 로그아웃할 때 이 토큰을 폐기하는 데 쓴다. (jti 가 없던 토큰은 null)
+    private final long expiresAt;   // access token exp (epoch millis)
+
+    public AccountPrincipal(long accountId, String email, String nickname, String tokenId, long expiresAt, Collection<? extends GrantedAuthority> authorities) {
+        super(email, "", authorities);
+        this.accountId = accountId;
+        this.nickname = nickname;
+        this.tokenId = tokenId;
+        this.expiresAt = expiresAt;
+    }
+}
@@ -7,7 +7,8 @@ import java.lang.annotation.*;
 @Target({ElementType.PARAMETER, ElementType.TYPE})
 @Retention(RetentionPolicy.RUNTIME)
 @Documented
-@AuthenticationPrincipal(expression = "@accountService.getUserInfo()")
+@AuthenticationPrincipal(expression = "@accountService.getCurrentAccount(#this)")
 //인증된 사용자의 Principal 정보를 참조할 수 있다. 여기서 말하는 Principal은 우리가 인증할 때 Authentication 에 들어있는 첫번째 파라미터 이다.
+//principal(AccountPrincipal)의 계정 id 로 만든 Account 프록시가 주입된다. 핸들러에서 id 외의 필드를 읽을 때만 계정을 조회한다.
 public @interface CurrentUser {
 }
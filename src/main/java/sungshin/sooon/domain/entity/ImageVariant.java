@@ -0,0 +1,36 @@
+package sungshin.sooon.domain.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+
+/*
+    업로드한 이미지의 가로 폭별 축소본 (ImageVariantPipeline 이 비동기로 만든다)
+        원본 URL(originalUrl)은 PostImages.imageUrl 과 같은 값이다. 글 이미지의 썸네일은 imageUrl 로 찾는다.
+        이미지 업로드는 글 작성보다 먼저라서 글(PostImages id)이 아니라 원본 URL 에 매단다.
+ */
+@Entity
+@Getter
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_image_variant_original_width", columnNames = {"original_url", "width"}))
+public class ImageVariant {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "image_variant_id")
+    private Long id;
+
+    @Column(name = "original_url", nullable = false)
+    private String originalUrl;
+
+    @Column(nullable = false)
+    private int width;
+
+    @Column(nullable = false)
+    private String url;
+}
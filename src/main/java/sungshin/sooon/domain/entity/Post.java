@@ -1,9 +1,10 @@
 package sungshin.sooon.domain.entity;
 
 import lombok.*;
-import org.hibernate.annotations.Formula;
+import org.springframework.data.annotation.LastModifiedDate;
 
 import javax.persistence.*;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -12,7 +13,10 @@ import java.util.List;
 @Builder
 @AllArgsConstructor
 @NoArgsConstructor
-@EqualsAndHashCode
+@Table(indexes = {
+        @Index(name = "idx_post_created_at", columnList = "created_at, post_id"), // 커서 페이징 (createdAt, id) 정렬용 인덱스
+        @Index(name = "idx_post_like_count", columnList = "like_count, post_id")  // 좋아요순 정렬이 인덱스 스캔으로 끝나도록
+})
 //(callSuper=false) @EqualsAndHashCode(callSuper = true)로 설정시 부모 클래스 필드 값들도 동일한지 체크하며, false(기본값)일 경우 자신 클래스의 필드 값만 고려한다.
 /*
 @EqualsAndHashCode
@@ -96,17 +100,15 @@ public class Post extends BaseEntity {
             다만 기존 관계가 끊어진 상태가 아니기 때문에 teamA의 getMembers() 적용 시 여전히 member1이 조회된다는 것이 문제일 뿐이다.
      */
 
+    /*
+        예전에는 여기서 account.getPosts().contains(this) / remove(this) 로 반대쪽 컬렉션까지 맞췄다.
+        그러면 글을 쓸 때마다 작성자의 posts 컬렉션 전체를 읽어오고(글 1만 개면 1만 행), 원소마다 equals 를 호출하므로
+        글을 많이 쓴 사람일수록 글 작성이 느려진다.
+        => 외래 키의 주인인 이쪽만 설정한다. account.getPosts() 는 조회용(mappedBy)이고, 같은 트랜잭션 안에서 새 글이 그 컬렉션에 보일 필요는 없다.
+           (bytecode enhancement 의 enableAssociationManagement 도 같은 이유로 끈다.)
+     */
     public void setAccount(Account account) {
-        if (this.account != null) {
-            this.account.getPosts().remove(this);
-        }
-
         this.account = account;
-
-        // 편의 메소드는 한 곳에만 작성하거나 양쪽 다 작성할 수 있다. 양쪽 엔티티 둘다 작성한다면 무한루프에 빠지지 않도록 체크
-        if (!account.getPosts().contains(this)) {
-            account.getPosts().add(this);
-        }
     }
 
     /*
@@ -145,8 +147,31 @@ public class Post extends BaseEntity {
         this.isAnonymous = isAnonymous;
     }
 
-    @Formula("(select count(1) from post_like as pl where pl.post_id = post_id)")
+    /*
+        예전에는 @Formula("(select count(1) from post_like as pl where pl.post_id = post_id)") 로 조회할 때마다 카운트를 계산했다.
+        포스트를 한 건 읽을 때마다 상관 서브쿼리가 실행되고, likeCount 로 정렬하면 post 테이블 전체에 대해 카운트를 구해야 정렬할 수 있다.
+        => 카운트를 컬럼으로 저장하고 좋아요/댓글이 추가, 삭제될 때 update post set like_count = like_count + 1 로 원자적으로 갱신한다.
+           정렬은 (like_count, post_id) 인덱스를 그대로 타게 된다. 혹시 어긋난 값은 PostCounterReconciler 가 주기적으로 맞춰준다.
+
+        insertable, updatable = false
+            엔티티를 수정(dirty checking)할 때 메모리에 들고 있던 오래된 카운트로 덮어쓰지 않도록 UPDATE 문에서 제외한다.
+            값 변경은 PostRepository 의 벌크 업데이트 쿼리로만 한다.
+     */
+    @Column(nullable = false, insertable = false, updatable = false, columnDefinition = "bigint default 0")
     private long likeCount;
+
+    @Column(nullable = false, insertable = false, updatable = false, columnDefinition = "bigint default 0")
+    private long commentCount;
+
+    // 마지막으로 발급한 익명 번호(익명N). PostCommentService 가 행 잠금을 건 상태에서만 증가시킨다.
+    @Column(nullable = false, insertable = false, updatable = false, columnDefinition = "bigint default 0")
+    private long anonymousSeq;
+
+    // 제목/본문이 마지막으로 저장된 시각. PostSearchIndex 가 스냅샷 이후에 수정된 글을 다시 색인할 때 쓴다.
+    // 카운터는 벌크 업데이트로만 바뀌어서 여기에 반영되지 않는다. 읽는 곳은 시작할 때 한 번뿐이라 인덱스는 두지 않는다.
+    @LastModifiedDate
+    @Column
+    private LocalDateTime modifiedAt;
     /*
      *
      * 단순히 카운트만을 조회하기 위해서 연관 엔터티를 사용한다면 (list.size())
@@ -155,4 +180,26 @@ public class Post extends BaseEntity {
      *  부서 목록 화면에서 실제로 사용하는 것은 카운트뿐이다. 다른 연관 엔터티 속성을 사용하지 않는다. 그렇다면 카운트만 추출해서 성능을 개선할 수 있지 않을까?
      * 출처: https://www.popit.kr/jpa-%EC%97%94%ED%84%B0%ED%8B%B0-%EC%B9%B4%EC%9A%B4%ED%8A%B8-%EC%84%B1%EB%8A%A5-%EA%B0%9C%EC%84%A0%ED%95%98%EA%B8%B0/
      */
+
+    /*
+        예전 @EqualsAndHashCode 는 모든 필드(account, postImages 컬렉션 포함)를 비교해서, 컬렉션 안에서 비교할 때마다 연관 엔티티까지 읽었다.
+        => id 로만 비교한다. 저장 전(id 0)인 글은 자기 자신과만 같다.
+           hashCode 는 상수라서 저장하면서 id 가 생겨도 HashSet 안에서 위치가 바뀌지 않는다.
+           프록시와 비교할 수 있도록 필드 대신 getId() 를 쓰고, getClass() 대신 instanceof 로 확인한다.
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Post)) {
+            return false;
+        }
+        return id != 0 && id == ((Post) o).getId();
+    }
+
+    @Override
+    public int hashCode() {
+        return Post.class.hashCode();
+    }
 }
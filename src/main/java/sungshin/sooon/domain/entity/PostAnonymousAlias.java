@@ -0,0 +1,38 @@
+package sungshin.sooon.domain.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+
+/*
+    글마다 익명 댓글 작성자에게 발급한 번호(익명1, 익명2 ...)
+        같은 글에서는 같은 사람이 항상 같은 번호를 쓰고, 번호는 글의 anonymous_seq 를 하나씩 올려서 발급한다.
+        (post_id, account_id) 유니크 인덱스 한 번으로 번호를 찾으므로 댓글이 몇 개든 조회 비용이 같다.
+ */
+@Entity
+@Getter
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_post_anonymous_alias_post_account", columnNames = {"post_id", "account_id"}))
+public class PostAnonymousAlias {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name = "post_anonymous_alias_id")
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "post_id", nullable = false)
+    private Post post;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "account_id", nullable = false)
+    private Account account;
+
+    @Column(nullable = false)
+    private long aliasNum;
+}
@@ -5,6 +5,10 @@ import lombok.*;
 import javax.persistence.*;
 
 @Entity
+@Table(indexes = {
+        // 댓글 목록 커서 페이징: where post_id = ? and (created_at, post_comment_id) > (?, ?) order by created_at, post_comment_id
+        @Index(name = "idx_post_comment_post_created_at", columnList = "post_id, created_at, post_comment_id")
+})
 @Getter
 @Builder
 @AllArgsConstructor
@@ -13,10 +13,12 @@ import javax.persistence.*;
 @Builder
 @AllArgsConstructor
 @NoArgsConstructor
+// 같은 사람이 같은 글에 좋아요를 두 번 저장할 수 없도록 보장. PostLikeBuffer 의 멱등 insert 와 (post_id, account_id) 조회에 사용된다.
+@Table(uniqueConstraints = @UniqueConstraint(name = "uk_post_like_post_account", columnNames = {"post_id", "account_id"}))
 public class PostLike {
 
     @Id
-    @GeneratedValue
+    @GeneratedValue(strategy = GenerationType.IDENTITY) // PostLikeBuffer 가 JDBC 로 직접 insert 하므로 DB 가 id 를 채우도록
     @Column(name = "post_like_id")
     private Long id;
 
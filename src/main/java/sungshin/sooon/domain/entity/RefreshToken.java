@@ -6,6 +6,7 @@ import org.hibernate.annotations.DynamicUpdate;
 import javax.persistence.Entity;
 import javax.persistence.Id;
 
+// 계정(email)마다 마지막으로 발급한 refresh token 하나. 읽기/쓰기는 RefreshTokenStore 가 메모리에서 처리하고 여기에는 모아서 반영한다.
 @Entity
 @Getter
 @Setter
@@ -18,5 +19,7 @@ public class RefreshToken {
     @Id
     private String email;
 
-    private String tokenValue;
-}
\ No newline at end of file
+    private String tokenValue; // 토큰 원문이 아니라 SHA-256 digest
+
+    private Long expiresAt;    // epoch millis. 이 컬럼이 없던 예전 행(null)은 원문이 저장되어 있어 쓰지 않는다.
+}
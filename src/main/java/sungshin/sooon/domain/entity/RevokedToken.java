@@ -0,0 +1,31 @@
+package sungshin.sooon.domain.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+
+// 로그아웃한 access token 의 jti. 재기동/다른 인스턴스에서 TokenRevocationStore 를 다시 채우는 데만 쓴다.
+@Entity
+@Getter
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Table(indexes = {
+        @Index(name = "idx_revoked_token_revoked_at", columnList = "revoked_at"), // 다른 인스턴스에서 폐기한 토큰 가져오기
+        @Index(name = "idx_revoked_token_expires_at", columnList = "expires_at")  // 만료된 행 정리
+})
+public class RevokedToken {
+
+    @Id
+    @Column(name = "token_id", length = 36)
+    private String tokenId;
+
+    @Column(name = "expires_at", nullable = false)
+    private long expiresAt;  // 토큰 exp (epoch millis). 이후로는 어차피 만료라 지워도 된다.
+
+    @Column(name = "revoked_at", nullable = false)
+    private long revokedAt;
+}
@@ -0,0 +1,10 @@
+package sungshin.sooon.domain.repository;
+
+// 이메일/닉네임 Bloom filter 로딩에 필요한 컬럼만 담는 프로젝션
+public interface AccountNameSource {
+    long getId();
+
+    String getEmail();
+
+    String getNickname();
+}
@@ -1,12 +1,21 @@
 package sungshin.sooon.domain.repository;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import sungshin.sooon.domain.entity.Account;
 
+import java.util.List;
+
 public interface AccountRepository extends JpaRepository<Account, Long> {
     Account findByEmail(String email);
 
     boolean existsByEmail(String nickname);
 
     boolean existsByNickname(String nickname);
+
+    // AccountNameFilter 로딩용. id 순서로 batch 크기만큼씩 끊어 읽는다.
+    @Query("select a.id as id, a.email as email, a.nickname as nickname from Account a where a.id > :id order by a.id")
+    List<AccountNameSource> findNameSourcesAfterId(@Param("id") long id, Pageable pageable);
 }
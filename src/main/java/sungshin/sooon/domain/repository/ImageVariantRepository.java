@@ -0,0 +1,14 @@
+package sungshin.sooon.domain.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import sungshin.sooon.domain.entity.ImageVariant;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface ImageVariantRepository extends JpaRepository<ImageVariant, Long> {
+    List<ImageVariant> findByOriginalUrlOrderByWidth(String originalUrl);
+
+    // 글 이미지(PostImages.imageUrl)들의 축소본을 한 번에
+    List<ImageVariant> findByOriginalUrlIn(Collection<String> originalUrls);
+}
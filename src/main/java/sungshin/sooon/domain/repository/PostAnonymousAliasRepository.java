@@ -0,0 +1,17 @@
+package sungshin.sooon.domain.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import sungshin.sooon.domain.entity.PostAnonymousAlias;
+
+import java.util.Optional;
+
+public interface PostAnonymousAliasRepository extends JpaRepository<PostAnonymousAlias, Long> {
+    @Query("select a.aliasNum from PostAnonymousAlias a where a.post.id = :postId and a.account.id = :accountId")
+    Optional<Long> findAliasNum(@Param("postId") long postId, @Param("accountId") long accountId);
+
+    // 글 행 잠금을 잡은 뒤 다시 확인할 때 사용. 잠금 읽기라서 스냅샷이 아닌 가장 최근에 커밋된 값을 본다.
+    @Query(value = "select alias_num from post_anonymous_alias where post_id = :postId and account_id = :accountId for update", nativeQuery = true)
+    Optional<Long> findAliasNumForUpdate(@Param("postId") long postId, @Param("accountId") long accountId);
+}
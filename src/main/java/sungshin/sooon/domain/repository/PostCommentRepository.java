@@ -1,21 +1,33 @@
 package sungshin.sooon.domain.repository;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
-import sungshin.sooon.domain.entity.Account;
-import sungshin.sooon.domain.entity.Post;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import sungshin.sooon.domain.entity.PostComment;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 public interface PostCommentRepository extends JpaRepository<PostComment, Long> {
-    List<PostComment> findAllByPost(Post post);
+    // 댓글 단건 조회/수정/삭제용. 글에 달린 댓글인지 확인하면서 작성자까지 한 번에 읽는다.
+    @Query("select c from PostComment c join fetch c.account where c.id = :id and c.post.id = :postId")
+    Optional<PostComment> findByIdAndPostId(@Param("id") long id, @Param("postId") long postId);
 
-    PostComment findTop1ByAccountAndPostAndIsAnonymous(Account account, Post post, boolean isAnonymous);
-
-    PostComment findTop1ByPostAndIsAnonymousOrderByCreatedAtDesc(Post post, boolean isAnonymous);
     /*
-    limit를 주는 메서드 네임은 findTop{num}By 입니다.
-    findTop1By: 단 1개만 찾습니다
-    https://alalstjr.github.io/java/2019/06/27/JPA-Repository-%EC%BF%BC%EB%A6%AC-limit-%EC%84%A4%EC%A0%95/
+        댓글 목록 커서 페이징. (created_at, id) 오름차순
+        작성자는 댓글마다 따로 읽지 않도록 fetch join 한다. (ManyToOne 이라 fetch join 과 limit 을 같이 써도 DB 에서 잘린다.)
+        count 쿼리가 필요 없도록 Page 대신 size + 1 건을 읽어 다음 페이지 여부를 판단한다.
      */
+    @Query("select c from PostComment c join fetch c.account" +
+            " where c.post.id = :postId" +
+            " order by c.createdAt asc, c.id asc")
+    List<PostComment> findPageByPostId(@Param("postId") long postId, Pageable pageable);
+
+    @Query("select c from PostComment c join fetch c.account" +
+            " where c.post.id = :postId" +
+            " and (c.createdAt > :createdAt or (c.createdAt = :createdAt and c.id > :id))" +
+            " order by c.createdAt asc, c.id asc")
+    List<PostComment> findPageByPostIdAfter(@Param("postId") long postId, @Param("createdAt") LocalDateTime createdAt, @Param("id") long id, Pageable pageable);
 }
@@ -0,0 +1,8 @@
+package sungshin.sooon.domain.repository;
+
+// 피드/상세 응답에 붙일 글 이미지. Post 를 EAGER 로 다시 읽지 않도록 엔티티 대신 컬럼만 읽는다.
+public interface PostImageSource {
+    long getPostId();
+
+    String getImageUrl();
+}
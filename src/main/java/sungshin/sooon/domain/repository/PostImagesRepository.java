@@ -0,0 +1,15 @@
+package sungshin.sooon.domain.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import sungshin.sooon.domain.entity.PostImages;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface PostImagesRepository extends JpaRepository<PostImages, Long> {
+    // 한 페이지 글들의 이미지를 한 번에, 글 안에서는 orderNum 순서로
+    @Query("select pi.post.id as postId, pi.imageUrl as imageUrl from PostImages pi where pi.post.id in :postIds order by pi.post.id, pi.orderNum")
+    List<PostImageSource> findAllByPostIdIn(@Param("postIds") Collection<Long> postIds);
+}
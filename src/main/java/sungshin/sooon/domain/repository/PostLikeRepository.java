@@ -1,10 +1,23 @@
 package sungshin.sooon.domain.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import sungshin.sooon.domain.entity.Account;
 import sungshin.sooon.domain.entity.Post;
 import sungshin.sooon.domain.entity.PostLike;
 
+import java.util.Collection;
+import java.util.List;
+
 public interface PostLikeRepository extends JpaRepository<PostLike, Long> {
     PostLike findByAccountAndPost(Account account, Post post);
+
+    // PostLikeIndex 비트맵 로딩용. (post_id, account_id) 유니크 인덱스만 읽고 끝난다.
+    @Query("select pl.account.id from PostLike pl where pl.post.id = :postId")
+    List<Long> findAccountIdsByPostId(@Param("postId") long postId);
+
+    // 피드 한 페이지 분의 likedByMe 를 한 번에 확인한다. (post_id, account_id) 유니크 인덱스를 글 수만큼 짚고 끝난다.
+    @Query("select pl.post.id from PostLike pl where pl.account.id = :accountId and pl.post.id in :postIds")
+    List<Long> findLikedPostIds(@Param("accountId") long accountId, @Param("postIds") Collection<Long> postIds);
 }
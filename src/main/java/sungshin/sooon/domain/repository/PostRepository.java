@@ -1,11 +1,95 @@
 package sungshin.sooon.domain.repository;
 
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
-import sungshin.sooon.domain.entity.Account;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import sungshin.sooon.domain.entity.Post;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 public interface PostRepository extends JpaRepository<Post, Long> {
-    List<Post> findAllByAccountOrderByCreatedAtDesc(Account account);
+    String SUMMARY_SELECT = "select p.id as id, p.title as title, p.content as content, p.isAnonymous as anonymous," +
+            " p.likeCount as likeCount, p.commentCount as commentCount, p.createdAt as createdAt," +
+            " a.id as accountId, a.nickname as accountNickname" +
+            " from Post p join p.account a";
+
+    // offset 페이징과 커서 페이징의 첫 페이지에서 사용. Slice 는 size + 1 개를 조회해서 다음 페이지 존재 여부만 판단한다.
+    @Query(SUMMARY_SELECT + " order by p.createdAt desc, p.id desc")
+    Slice<PostSummary> findFeedOrderByCreatedAt(Pageable pageable);
+
+    @Query(SUMMARY_SELECT + " order by p.likeCount desc, p.id desc")
+    Slice<PostSummary> findFeedOrderByLikeCount(Pageable pageable);
+
+    // (createdAt, id) 가 커서보다 작은 행만 조회 => offset 없이 인덱스에서 바로 다음 위치부터 읽는다.
+    @Query(SUMMARY_SELECT +
+            " where p.createdAt < :createdAt or (p.createdAt = :createdAt and p.id < :id)" +
+            " order by p.createdAt desc, p.id desc")
+    Slice<PostSummary> findFeedAfterCreatedAt(@Param("createdAt") LocalDateTime createdAt, @Param("id") long id, Pageable pageable);
+
+    @Query(SUMMARY_SELECT +
+            " where p.likeCount < :likeCount or (p.likeCount = :likeCount and p.id < :id)" +
+            " order by p.likeCount desc, p.id desc")
+    Slice<PostSummary> findFeedAfterLikeCount(@Param("likeCount") long likeCount, @Param("id") long id, Pageable pageable);
+
+    @Query(SUMMARY_SELECT + " where a.id = :accountId order by p.createdAt desc, p.id desc")
+    List<PostSummary> findAllSummaryByAccountId(@Param("accountId") long accountId);
+
+    @Query(SUMMARY_SELECT + " where p.id in :ids")
+    List<PostSummary> findAllSummaryByIdIn(@Param("ids") Collection<Long> ids);
+
+    // 최근 글만 createdAt 인덱스 순서대로 읽는다. 전체 테이블을 정렬하지 않는다.
+    @Query("select p.id as id, p.likeCount as likeCount, p.commentCount as commentCount, p.createdAt as createdAt" +
+            " from Post p where p.createdAt >= :since order by p.createdAt desc, p.id desc")
+    List<TrendingCandidate> findTrendingCandidates(@Param("since") LocalDateTime since, Pageable pageable);
+
+    // 최근 글만 후보로 읽으면 며칠 지났지만 반응이 많은 글이 빠진다. 같은 기간을 반응 수(좋아요 + 2 * 댓글, 점수의 분자) 순으로도 읽는다.
+    // 정렬용 인덱스는 없지만 createdAt 범위(windowDays)로 좁힌 뒤 정렬하고, 재계산 때(기본 5분)만 실행된다.
+    @Query("select p.id as id, p.likeCount as likeCount, p.commentCount as commentCount, p.createdAt as createdAt" +
+            " from Post p where p.createdAt >= :since order by (p.likeCount + 2 * p.commentCount) desc, p.id desc")
+    List<TrendingCandidate> findTrendingCandidatesByEngagement(@Param("since") LocalDateTime since, Pageable pageable);
+
+    // 검색 색인 로딩용. id 순서로 batch 크기만큼씩 끊어 읽어서 전체 글을 한 번에 메모리에 올리지 않는다.
+    @Query("select p.id as id, p.title as title, p.content as content from Post p where p.id > :id order by p.id")
+    List<PostSearchSource> findSearchSourcesAfterId(@Param("id") long id, Pageable pageable);
+
+    // 스냅샷 이후에 수정된 글. modifiedAt 이 없는 예전 글은 제외된다.
+    @Query("select p.id as id, p.title as title, p.content as content from Post p where p.modifiedAt > :since and p.id > :id order by p.id")
+    List<PostSearchSource> findSearchSourcesModifiedAfter(@Param("since") LocalDateTime since, @Param("id") long id, Pageable pageable);
+
+    @Query("select p.id from Post p where p.id > :id order by p.id")
+    List<Long> findIdsAfterId(@Param("id") long id, Pageable pageable);
+
+    // 카운터는 읽고-더하고-쓰기 대신 DB 에서 한 번에 증감한다. 동시에 좋아요가 눌려도 행 잠금으로 직렬화되어 값이 유실되지 않는다.
+    @Modifying
+    @Query("update Post p set p.likeCount = p.likeCount + :delta where p.id = :id")
+    int addLikeCount(@Param("id") long id, @Param("delta") long delta);
+
+    @Modifying
+    @Query("update Post p set p.commentCount = p.commentCount + :delta where p.id = :id")
+    int addCommentCount(@Param("id") long id, @Param("delta") long delta);
+
+    // 익명 번호 발급용. 글 행을 잠그므로 같은 글에 처음 익명 댓글을 다는 요청끼리는 (앱 서버가 여러 대여도) 한 줄로 선다.
+    @Query(value = "select anonymous_seq from post where post_id = :id for update", nativeQuery = true)
+    Optional<Long> findAnonymousSeqForUpdate(@Param("id") long id);
+
+    @Modifying
+    @Query("update Post p set p.anonymousSeq = p.anonymousSeq + 1 where p.id = :id")
+    int incrementAnonymousSeq(@Param("id") long id);
+
+    // 실제 post_like, post_comment 개수와 다른 행만 다시 맞춘다. 바뀐 행 수를 반환
+    @Modifying
+    @Query(value = "update post p set like_count = (select count(1) from post_like pl where pl.post_id = p.post_id)" +
+            " where p.like_count <> (select count(1) from post_like pl where pl.post_id = p.post_id)", nativeQuery = true)
+    int reconcileLikeCount();
+
+    @Modifying
+    @Query(value = "update post p set comment_count = (select count(1) from post_comment pc where pc.post_id = p.post_id)" +
+            " where p.comment_count <> (select count(1) from post_comment pc where pc.post_id = p.post_id)", nativeQuery = true)
+    int reconcileCommentCount();
 }
@@ -0,0 +1,10 @@
+package sungshin.sooon.domain.repository;
+
+// 검색 색인에 필요한 컬럼만 담는 프로젝션
+public interface PostSearchSource {
+    long getId();
+
+    String getTitle();
+
+    String getContent();
+}
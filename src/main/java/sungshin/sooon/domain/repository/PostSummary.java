@@ -0,0 +1,29 @@
+package sungshin.sooon.domain.repository;
+
+import java.time.LocalDateTime;
+
+/*
+    피드 조회용 인터페이스 기반 프로젝션
+        PostResponseDto 에 필요한 컬럼만 select 절에 나열해서 한 번의 SQL 로 가져온다.
+        엔티티가 아니므로 영속성 컨텍스트에 올라가지 않고(스냅샷, 더티 체킹 없음), EAGER 인 Post.account 를 위한 추가 select(N+1)도 발생하지 않는다.
+        쿼리의 별칭(as id, as title ...)과 getter 이름이 일치해야 한다.
+ */
+public interface PostSummary {
+    long getId();
+
+    String getTitle();
+
+    String getContent();
+
+    boolean getAnonymous();
+
+    long getLikeCount();
+
+    long getCommentCount();
+
+    LocalDateTime getCreatedAt();
+
+    long getAccountId();
+
+    String getAccountNickname();
+}
@@ -0,0 +1,19 @@
+package sungshin.sooon.domain.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import sungshin.sooon.domain.entity.RevokedToken;
+
+import java.util.List;
+
+public interface RevokedTokenRepository extends JpaRepository<RevokedToken, String> {
+    // 아직 만료되지 않았고 revokedAt 이후에 폐기된 토큰
+    @Query("select r from RevokedToken r where r.revokedAt > :revokedAt and r.expiresAt > :now")
+    List<RevokedToken> findRevokedAfter(@Param("revokedAt") long revokedAt, @Param("now") long now);
+
+    @Modifying
+    @Query("delete from RevokedToken r where r.expiresAt <= :now")
+    int deleteExpired(@Param("now") long now);
+}
@@ -0,0 +1,14 @@
+package sungshin.sooon.domain.repository;
+
+import java.time.LocalDateTime;
+
+// 인기글 점수 계산에 필요한 컬럼만 담는 프로젝션
+public interface TrendingCandidate {
+    long getId();
+
+    long getLikeCount();
+
+    long getCommentCount();
+
+    LocalDateTime getCreatedAt();
+}
@@ -0,0 +1,18 @@
+package sungshin.sooon.dto;
+
+import lombok.*;
+
+import java.util.Map;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class ImageVariantResponseDto {
+    private String originalUrl;
+    private String status;              // QUEUED, RUNNING, DONE, SKIPPED(이미 작거나 지원하지 않는 형식), FAILED, REJECTED(대기열 초과)
+    private int completed;
+    private int total;
+    private Map<Integer, String> variants; // 가로 폭 -> URL (만들어진 것만)
+}
@@ -0,0 +1,80 @@
+package sungshin.sooon.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import sungshin.sooon.exception.BadRequestException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/*
+    키셋(커서) 페이징에 사용하는 커서
+        (정렬 키, id) 쌍을 base64url 로 인코딩해서 클라이언트에게는 불투명한 문자열로만 노출한다.
+        offset 페이징은 page * size 만큼의 행을 읽고 버리지만, 커서 페이징은 "where (정렬키, id) < (커서)" 조건으로 인덱스에서 바로 다음 행을 찾기 때문에
+        몇 페이지를 넘기든 조회 비용이 일정하고, 중간에 새 글이 추가되어도 페이지 경계가 밀리지 않는다.
+ */
+@Getter
+@AllArgsConstructor
+public class PageCursor {
+    private static final String DELIMITER = "|";
+
+    private final String key;
+    private final long id;
+
+    public static PageCursor of(LocalDateTime createdAt, long id) {
+        return new PageCursor(createdAt.toString(), id);
+    }
+
+    public static PageCursor of(long count, long id) {
+        return new PageCursor(Long.toString(count), id);
+    }
+
+    public static PageCursor of(double score, long id) {
+        return new PageCursor(Double.toString(score), id);
+    }
+
+    public String encode() {
+        return Base64.getUrlEncoder()
+                .withoutPadding()
+                .encodeToString((key + DELIMITER + id).getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static PageCursor decode(String cursor) {
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int index = decoded.lastIndexOf(DELIMITER);
+            if (index < 0) {
+                throw new BadRequestException("잘못된 커서 값입니다.");
+            }
+            return new PageCursor(decoded.substring(0, index), Long.parseLong(decoded.substring(index + 1)));
+        } catch (IllegalArgumentException e) { // base64, 숫자 파싱 실패 모두 IllegalArgumentException
+            throw new BadRequestException("잘못된 커서 값입니다.");
+        }
+    }
+
+    public LocalDateTime getKeyAsDateTime() {
+        try {
+            return LocalDateTime.parse(key);
+        } catch (DateTimeParseException e) {
+            throw new BadRequestException("잘못된 커서 값입니다.");
+        }
+    }
+
+    public double getKeyAsDouble() {
+        try {
+            return Double.parseDouble(key);
+        } catch (NumberFormatException e) {
+            throw new BadRequestException("잘못된 커서 값입니다.");
+        }
+    }
+
+    public long getKeyAsLong() {
+        try {
+            return Long.parseLong(key);
+        } catch (NumberFormatException e) {
+            throw new BadRequestException("잘못된 커서 값입니다.");
+        }
+    }
+}
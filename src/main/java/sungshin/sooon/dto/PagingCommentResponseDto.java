@@ -0,0 +1,17 @@
+package sungshin.sooon.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@EqualsAndHashCode
+public class PagingCommentResponseDto {
+    List<CommentResponseDto> comments;
+    boolean hasNext;
+    String nextCursor; // 다음 페이지 요청시 cursor 파라미터로 그대로 넘겨주면 된다. 마지막 페이지면 null
+}
@@ -15,4 +15,5 @@ public class PagingPostResponseDto {
     Integer currentSize;
     boolean hasNextPage;
     List<PostResponseDto> posts;
+    String nextCursor; // 다음 페이지 요청시 cursor 파라미터로 그대로 넘겨주면 된다. 마지막 페이지면 null
 }
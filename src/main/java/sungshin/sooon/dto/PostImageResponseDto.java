@@ -0,0 +1,18 @@
+package sungshin.sooon.dto;
+
+import lombok.*;
+
+import java.util.Map;
+
+@Getter
+@Setter
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@EqualsAndHashCode
+public class PostImageResponseDto {
+    private String url; // 원본
+
+    // 가로 폭 -> 축소본 URL. 아직 만들지 않았거나 만들 필요가 없는(원본이 작은) 이미지는 비어 있으니 원본을 쓴다.
+    private Map<Integer, String> variants;
+}
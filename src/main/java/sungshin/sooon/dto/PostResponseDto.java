@@ -1,9 +1,12 @@
 package sungshin.sooon.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.*;
 import sungshin.sooon.domain.entity.Post;
+import sungshin.sooon.domain.repository.PostSummary;
 
 import java.time.LocalDateTime;
+import java.util.List;
 
 @Getter
 @Setter
@@ -17,11 +20,20 @@ public class PostResponseDto {
     private String content;
     private boolean anonymous;
     private long likesCount;
+    private long commentsCount;
     private LocalDateTime createdAt;
 
     private long accountId;
     private String accountNickname;
 
+    // 로그인한 사용자가 이 글에 좋아요 했는지. 사용자와 무관하게 만든 응답(캐시 등)에서는 null 이라 JSON 에 나오지 않는다.
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private Boolean likedByMe;
+
+    // 글 이미지와 폭별 축소본. 이미지가 없는 글은 JSON 에 나오지 않는다.
+    @JsonInclude(JsonInclude.Include.NON_EMPTY)
+    private List<PostImageResponseDto> images;
+
     //save할때는 requestDto를 entity로, find를 할 때는 entity를 responseDto로 전환하는 과정을 거치게 됩니다.
     public static PostResponseDto of(Post post) {
         return PostResponseDto
@@ -34,6 +46,23 @@ public class PostResponseDto {
                 .content(post.getContent())
                 .anonymous(post.isAnonymous())
                 .likesCount(post.getLikeCount())
+                .commentsCount(post.getCommentCount())
+                .build();
+    }
+
+    // 피드처럼 목록을 조회할 때는 엔티티 대신 프로젝션에서 바로 변환한다.
+    public static PostResponseDto of(PostSummary postSummary) {
+        return PostResponseDto
+                .builder()
+                .id(postSummary.getId())
+                .accountNickname(postSummary.getAccountNickname())
+                .accountId(postSummary.getAccountId())
+                .createdAt(postSummary.getCreatedAt())
+                .title(postSummary.getTitle())
+                .content(postSummary.getContent())
+                .anonymous(postSummary.getAnonymous())
+                .likesCount(postSummary.getLikeCount())
+                .commentsCount(postSummary.getCommentCount())
                 .build();
     }
-}
\ No newline at end of file
+}
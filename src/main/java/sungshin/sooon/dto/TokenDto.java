@@ -10,4 +10,5 @@ public class TokenDto {
     private String accessToken;
     private Long accessTokenExpiresIn;
     private String refreshToken;
+    private Long refreshTokenExpiresIn;
 }
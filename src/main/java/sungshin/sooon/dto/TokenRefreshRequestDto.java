@@ -0,0 +1,15 @@
+package sungshin.sooon.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import javax.validation.constraints.NotBlank;
+
+@Getter
+@AllArgsConstructor
+@NoArgsConstructor
+public class TokenRefreshRequestDto {
+    @NotBlank(message = "refreshToken is required")
+    private String refreshToken;
+}
@@ -10,6 +10,7 @@ import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.servlet.mvc.method.annotation.ResponseEntityExceptionHandler;
 
+import javax.validation.ConstraintViolationException;
 import java.util.Date;
 
 @RestController
@@ -40,6 +41,25 @@ public class CustomizedResponseEntityExceptionHandler extends ResponseEntityExce
         return new ResponseEntity(exceptionResponse, HttpStatus.CONFLICT);
     }
 
+    // @Validated 컨트롤러의 @RequestParam 검증(@Min, @Max 등) 실패. 처리하지 않으면 500 으로 나간다.
+    @ExceptionHandler(ConstraintViolationException.class)
+    public final ResponseEntity<ExceptionResponse> handleConstraintViolationException(Exception ex, WebRequest request) {
+        ExceptionResponse exceptionResponse =
+                new ExceptionResponse(new Date(), ex.getMessage(), request.getDescription(false));
+
+        return new ResponseEntity(exceptionResponse, HttpStatus.BAD_REQUEST);
+    }
+
+    @ExceptionHandler(ServiceBusyException.class)
+    public final ResponseEntity<ExceptionResponse> handleServiceBusyException(ServiceBusyException ex, WebRequest request) {
+        ExceptionResponse exceptionResponse =
+                new ExceptionResponse(new Date(), ex.getMessage(), request.getDescription(false));
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()));
+        return new ResponseEntity(exceptionResponse, headers, HttpStatus.SERVICE_UNAVAILABLE);
+    }
+
     /*@ExceptionHandler(UserNotFoundException.class)
     public final ResponseEntity<ExceptionResponse>  handleUserNotFoundException(Exception ex, WebRequest request) {
         ExceptionResponse exceptionResponse =
@@ -0,0 +1,14 @@
+package sungshin.sooon.exception;
+
+import lombok.Getter;
+
+// 서버가 처리할 수 있는 양을 넘었을 때. 503 과 함께 Retry-After(초) 헤더로 다시 시도할 시점을 알려준다.
+@Getter
+public class ServiceBusyException extends RuntimeException {
+    private final long retryAfterSeconds;
+
+    public ServiceBusyException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+}
@@ -0,0 +1,129 @@
+package sungshin.sooon.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import sungshin.sooon.domain.repository.AccountNameSource;
+import sungshin.sooon.domain.repository.AccountRepository;
+import sungshin.sooon.util.BloomFilter;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.function.Predicate;
+
+/*
+    가입된 이메일/닉네임 Bloom filter
+        가입 폼은 입력할 때마다 check-email, check-nickname 을 부른다. 대부분은 아직 없는 값이라
+        Bloom filter 에 없으면(= 확실히 없음) DB 를 거치지 않고 바로 사용 가능으로 답한다.
+        filter 에 있으면(= 있을 수도 있음) unique 인덱스로 한 번 확인한다.
+
+    정규화: MySQL 기본 collation 은 대소문자, 끝 공백을 무시하고 비교하므로 filter 도 소문자 + 끝 공백 제거 값으로 넣고 찾는다.
+        (filter 가 DB 보다 느슨하게 일치하는 쪽이라 오탐만 늘 뿐 놓치는 값은 없다)
+
+    기동 직후 로딩이 끝나기 전에는 항상 DB 로 확인한다. 가입은 로딩 중에도 바로 filter 에 넣는다.
+    Bloom filter 는 삭제가 안 되므로 탈퇴/닉네임 변경이 생기면 그 값은 오탐으로 남는다. (재기동 시 정리)
+
+    지표
+        account.name.filter.checks{field, result=negative|true_positive|false_positive|not_ready}
+            관측 오탐률 = false_positive / (negative + false_positive)
+        account.name.filter.expected.fpp{field}: 채워진 비트 비율로 계산한 이론 오탐률
+ */
+@Slf4j
+@Component
+public class AccountNameFilter {
+    private static final String EMAIL = "email";
+    private static final String NICKNAME = "nickname";
+
+    private final AccountRepository accountRepository;
+    private final int batchSize;
+
+    private final Field email;
+    private final Field nickname;
+    private volatile boolean ready;
+
+    public AccountNameFilter(AccountRepository accountRepository,
+                             MeterRegistry meterRegistry,
+                             @Value("${account.name-filter.expected-insertions:200000}") long expectedInsertions,
+                             @Value("${account.name-filter.fpp:0.01}") double fpp,
+                             @Value("${account.name-filter.batch-size:5000}") int batchSize) {
+        this.accountRepository = accountRepository;
+        this.batchSize = batchSize;
+        this.email = new Field(EMAIL, new BloomFilter(expectedInsertions, fpp), meterRegistry);
+        this.nickname = new Field(NICKNAME, new BloomFilter(expectedInsertions, fpp), meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        long start = System.currentTimeMillis();
+        long lastId = 0;
+        long count = 0;
+        List<AccountNameSource> batch;
+        do {
+            batch = accountRepository.findNameSourcesAfterId(lastId, PageRequest.of(0, batchSize));
+            for (AccountNameSource source : batch) {
+                add(source.getEmail(), source.getNickname());
+                lastId = source.getId();
+            }
+            count += batch.size();
+        } while (batch.size() == batchSize);
+
+        ready = true;
+        log.info("이메일/닉네임 filter 로딩 완료: 계정 {}개, {}ms", count, System.currentTimeMillis() - start);
+    }
+
+    // 가입할 때 호출. 커밋 전에 넣어도 롤백되면 오탐이 하나 늘 뿐이다.
+    public void add(String email, String nickname) {
+        this.email.bloomFilter.put(normalize(email));
+        this.nickname.bloomFilter.put(normalize(nickname));
+    }
+
+    // exists 는 Bloom filter 가 "있을 수도" 라고 할 때만 호출된다.
+    public boolean emailExists(String value, Predicate<String> exists) {
+        return email.exists(value, exists);
+    }
+
+    public boolean nicknameExists(String value, Predicate<String> exists) {
+        return nickname.exists(value, exists);
+    }
+
+    static String normalize(String value) {
+        return value.stripTrailing().toLowerCase(Locale.ROOT);
+    }
+
+    private class Field {
+        private final BloomFilter bloomFilter;
+        private final Counter negative;
+        private final Counter truePositive;
+        private final Counter falsePositive;
+        private final Counter notReady;
+
+        Field(String name, BloomFilter bloomFilter, MeterRegistry meterRegistry) {
+            this.bloomFilter = bloomFilter;
+            this.negative = meterRegistry.counter("account.name.filter.checks", "field", name, "result", "negative");
+            this.truePositive = meterRegistry.counter("account.name.filter.checks", "field", name, "result", "true_positive");
+            this.falsePositive = meterRegistry.counter("account.name.filter.checks", "field", name, "result", "false_positive");
+            this.notReady = meterRegistry.counter("account.name.filter.checks", "field", name, "result", "not_ready");
+            Gauge.builder("account.name.filter.expected.fpp", bloomFilter, BloomFilter::expectedFpp).tag("field", name).register(meterRegistry);
+        }
+
+        boolean exists(String value, Predicate<String> exists) {
+            if (!ready) {
+                notReady.increment();
+                return exists.test(value);
+            }
+            if (!bloomFilter.mightContain(normalize(value))) {
+                negative.increment();
+                return false;
+            }
+            boolean found = exists.test(value);
+            (found ? truePositive : falsePositive).increment();
+            return found;
+        }
+    }
+}
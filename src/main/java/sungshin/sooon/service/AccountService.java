@@ -2,11 +2,12 @@ package sungshin.sooon.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.config.annotation.authentication.builders.AuthenticationManagerBuilder;
 import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsPasswordService;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.password.PasswordEncoder;
@@ -14,31 +15,41 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import sungshin.sooon.config.TokenProvider;
 import sungshin.sooon.domain.entity.Account;
-import sungshin.sooon.domain.entity.RefreshToken;
+import sungshin.sooon.domain.entity.AccountPrincipal;
 import sungshin.sooon.domain.entity.UserAccount;
 import sungshin.sooon.domain.repository.AccountRepository;
-import sungshin.sooon.domain.repository.RefreshTokenRepository;
 import sungshin.sooon.dto.AccountResponseDto;
 import sungshin.sooon.dto.LoginRequestDto;
 import sungshin.sooon.dto.SignupRequestDto;
 import sungshin.sooon.dto.TokenDto;
 import sungshin.sooon.exception.AlreadyExistsException;
-import sungshin.sooon.util.SecurityUtil;
+import sungshin.sooon.exception.InvalidTokenException;
+import sungshin.sooon.util.TransactionUtil;
 
 @Service
 @Slf4j
 @RequiredArgsConstructor
-public class AccountService implements UserDetailsService {
+public class AccountService implements UserDetailsService, UserDetailsPasswordService {
     private final AccountRepository accountRepository;
-    private final RefreshTokenRepository refreshTokenRepository;
+    private final RefreshTokenStore refreshTokenStore;
     private final AuthenticationManagerBuilder authenticationManagerBuilder;
     private final PasswordEncoder passwordEncoder;
     private final TokenProvider tokenProvider;
+    private final AccountNameFilter accountNameFilter;
 
-    // 로그인한 유저 정보 반환 to @CurrentUser
-    @Transactional(readOnly = true)
-    public Account getUserInfo() {
-        return accountRepository.findByEmail(SecurityUtil.getCurrentUserName());
+    /*
+        로그인한 유저 정보 반환 to @CurrentUser
+            예전에는 요청마다 findByEmail 로 계정을 읽었다. 지금은 토큰 클레임의 계정 id 로 프록시(getById)만 만들고
+            핸들러가 id 외의 필드(닉네임 등)를 실제로 읽을 때 한 번 조회한다. 대부분의 요청은 계정 쿼리가 없다.
+     */
+    public Account getCurrentAccount(Object principal) {
+        if (principal instanceof AccountPrincipal) {
+            return accountRepository.getById(((AccountPrincipal) principal).getAccountId());
+        }
+        if (principal instanceof UserDetails) { // 계정 id 클레임이 없는 예전 토큰
+            return accountRepository.findByEmail(((UserDetails) principal).getUsername());
+        }
+        return null; // 인증되지 않은 요청 ("anonymousUser")
     }
 
     @Override
@@ -51,39 +62,67 @@ public class AccountService implements UserDetailsService {
         return new UserAccount(account);
     }
 
-    //이메일 중복확인
+    /*
+        로그인 성공 후 저장된 해시가 지금 설정(bcrypt 강도)보다 약하면 DaoAuthenticationProvider 가 새로 해시해서 호출한다.
+        해시는 호출 전에 이미 끝나 있으므로 여기서 여는 트랜잭션은 읽고 쓰는 동안만 커넥션을 잡는다.
+     */
+    @Override
     @Transactional
+    public UserDetails updatePassword(UserDetails user, String newPassword) {
+        Account account = accountRepository.findByEmail(user.getUsername());
+        account.changePassword(newPassword);
+        return new UserAccount(account);
+    }
+
+    //이메일 중복확인
+    //트랜잭션을 열지 않는다. Bloom filter 에 없으면 커넥션도 잡지 않고 바로 끝난다.
     public boolean checkEmail(String email) {
-        if (accountRepository.existsByEmail(email)) {
+        if (accountNameFilter.emailExists(email, accountRepository::existsByEmail)) {
             throw new AlreadyExistsException("이미 존재하는 이메일 입니다.");
         }
         return true;
     }
 
-    //이메일 중복확인
-    @Transactional
+    //닉네임 중복확인
     public boolean checkNickname(String nickname) {
         //이 처리를 서비스단에서? 컨트롤러 단에서?
-        if (accountRepository.existsByNickname(nickname)) {
+        if (accountNameFilter.nicknameExists(nickname, accountRepository::existsByNickname)) {
             throw new AlreadyExistsException("이미 존재하는 닉네임 입니다.");
         }
         return true;
     }
 
-    //회원가입
-    @Transactional
+    /*
+        회원가입
+            Bloom filter 는 "확실히 없음" 만 믿을 수 있고, 탈퇴/닉네임 변경 값이 오탐으로 남거나 로딩 중일 수 있어
+            가입 판단에는 쓰지 않는다. 가입은 드물어서 unique 인덱스로 바로 확인한다. (filter 는 check-email, check-nickname 용)
+            확인과 insert 사이에 같은 값으로 먼저 가입한 요청이 있으면 unique 제약에 걸리므로 500 대신 409 로 돌려준다.
+        트랜잭션을 열지 않는다.
+            bcrypt(BoundedPasswordEncoder 대기 포함 최대 수 초) 동안 DB 커넥션을 잡고 있으면 가입/로그인이 몰릴 때 커넥션 풀이 바닥나
+            피드 요청까지 getConnection 에서 기다린다. 확인과 insert 는 각각 repository 트랜잭션에서 짧게 끝난다.
+     */
     public AccountResponseDto signup(SignupRequestDto signupRequestDto) {
         if (accountRepository.existsByEmail(signupRequestDto.getEmail())) {
             throw new AlreadyExistsException("이미 가입되어 있는 유저입니다");
         }
+        if (accountRepository.existsByNickname(signupRequestDto.getNickname())) {
+            throw new AlreadyExistsException("이미 존재하는 닉네임 입니다.");
+        }
 
         Account account = signupRequestDto.toAccount(passwordEncoder);
-        accountRepository.save(account);
-        return login(signupRequestDto.toLoginRequestDto());
+        try {
+            accountRepository.save(account);
+        } catch (DataIntegrityViolationException e) {
+            throw new AlreadyExistsException("이미 가입되어 있는 이메일 또는 닉네임입니다.");
+        }
+        accountNameFilter.add(account.getEmail(), account.getNickname());
+
+        // 방금 해시한 비밀번호로 다시 로그인(AuthenticationManager -> findByEmail -> bcrypt 검증)하지 않고 저장한 계정으로 바로 토큰 발급
+        UserAccount userAccount = new UserAccount(account);
+        return issueTokens(new UsernamePasswordAuthenticationToken(userAccount, null, userAccount.getAuthorities()));
     }
 
-    // 로그인
-    @Transactional
+    // 로그인. signup 과 같은 이유로 트랜잭션을 열지 않는다. 계정 조회와 해시 업그레이드 저장만 각자 짧은 트랜잭션을 쓴다.
     public AccountResponseDto login(LoginRequestDto loginRequestDto) {
         // 1. Login ID/PW 를 기반으로 AuthenticationToken 생성
         UsernamePasswordAuthenticationToken authenticationToken = loginRequestDto.toAuthentication();
@@ -92,20 +131,44 @@ public class AccountService implements UserDetailsService {
         //    authenticate 메서드가 실행이 될 때 loadUserByUsername 메서드가 실행됨
         Authentication authentication = authenticationManagerBuilder.getObject().authenticate(authenticationToken);
 
+        return issueTokens(authentication);
+    }
+
+    /*
+        토큰 갱신 (refresh token 회전)
+            비밀번호 검증(bcrypt) 없이 refresh token 만으로 새 access token 과 새 refresh token 을 발급한다.
+            쓴 refresh token 은 바로 무효가 된다.
+     */
+    public TokenDto refresh(String refreshToken) {
+        String email = tokenProvider.getRefreshTokenSubject(refreshToken);
+        if (email == null) {
+            throw new InvalidTokenException("유효하지 않은 refresh token 입니다.");
+        }
+
+        Account account = accountRepository.findByEmail(email);
+        if (account == null) { // 탈퇴한 계정
+            refreshTokenStore.revoke(email);
+            throw new InvalidTokenException("유효하지 않은 refresh token 입니다.");
+        }
+
+        UserAccount userAccount = new UserAccount(account);
+        TokenDto tokenDto = tokenProvider.generateTokenDto(new UsernamePasswordAuthenticationToken(userAccount, null, userAccount.getAuthorities()));
+        if (!refreshTokenStore.rotate(email, refreshToken, tokenDto.getRefreshToken(), tokenDto.getRefreshTokenExpiresIn())) {
+            throw new InvalidTokenException("만료되었거나 이미 사용된 refresh token 입니다.");
+        }
+        return tokenDto;
+    }
+
+    // 인증된 사용자(principal 은 UserAccount)에게 토큰 발급
+    private AccountResponseDto issueTokens(Authentication authentication) {
         // 3. 인증 정보를 기반으로 JWT 토큰 생성
         TokenDto tokenDto = tokenProvider.generateTokenDto(authentication);
 
-        // 4. RefreshToken 저장
-        RefreshToken refreshToken = RefreshToken.builder()
-                .email(authentication.getName())
-                .tokenValue(tokenDto.getRefreshToken())
-                .build();
-
-        refreshTokenRepository.save(refreshToken);
-        SecurityContextHolder.getContext().setAuthentication(authenticationToken);
+        // 4. RefreshToken 저장 (메모리에 기록, DB 는 RefreshTokenStore 가 모아서 반영)
+        TransactionUtil.afterCommit(() -> refreshTokenStore.save(authentication.getName(), tokenDto.getRefreshToken(), tokenDto.getRefreshTokenExpiresIn()));
 
-        // 5. 토큰 포함 현재 유저 정보 반환
-        AccountResponseDto accountResponseDto = AccountResponseDto.of(getUserInfo());
+        // 5. 토큰 포함 현재 유저 정보 반환 (인증할 때 읽은 계정을 그대로 사용)
+        AccountResponseDto accountResponseDto = AccountResponseDto.of(((UserAccount) authentication.getPrincipal()).getAccount());
         accountResponseDto.setToken(tokenDto);
         return accountResponseDto;
     }
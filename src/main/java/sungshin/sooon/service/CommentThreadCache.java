@@ -0,0 +1,288 @@
+package sungshin.sooon.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import sungshin.sooon.dto.CommentResponseDto;
+import sungshin.sooon.dto.PageCursor;
+import sungshin.sooon.util.TransactionUtil;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.LongFunction;
+import java.util.stream.Collectors;
+
+/*
+    글별 댓글 목록 캐시
+        인기글 댓글은 작성/수정/삭제 사이에 수천 번 다시 읽힌다. 글마다 앞쪽 댓글 maxCommentsPerThread 개를 (createdAt, id) 순서대로 들고 있다가
+        커서 위치부터 잘라서 돌려준다. 캐시에서 응답할 수 있으면 SQL 을 하나도 실행하지 않는다.
+
+    write-through
+        댓글 작성/수정/삭제가 커밋되면 캐시된 목록도 같은 내용으로 바로 고친다(비우지 않음). 그래서 쓰기가 잦은 글도 계속 캐시에서 응답한다.
+        다른 서버에서 쓴 댓글은 알 수 없으므로 ttlMillis 가 지나면 DB 에서 다시 읽는다.
+
+    앞쪽 일부만 들고 있는 글(complete = false)에서 캐시 범위를 넘어서는 페이지는 DB 에서 읽는다.
+    메모리는 댓글 내용 길이로 대략 계산한 크기(maxBytes)로 제한하고, 넘으면 가장 오래 안 읽힌 글부터 버린다.
+ */
+@Slf4j
+@Component
+public class CommentThreadCache {
+    private static final Comparator<CommentResponseDto> ORDER = Comparator
+            .comparing(CommentResponseDto::getCreatedAt)
+            .thenComparingLong(CommentResponseDto::getId);
+
+    @Getter
+    private final int maxCommentsPerThread;
+    private final long maxBytes;
+    private final long ttlMillis;
+
+    private final LinkedHashMap<Long, CachedThread> threads = new LinkedHashMap<>(16, 0.75f, true); // this 로 동기화
+    private final AtomicLong usedBytes = new AtomicLong();
+    private long epoch; // 댓글이 바뀔 때마다 증가. 로딩 도중 바뀌었으면 로딩 결과를 캐시하지 않는다.
+
+    private final Counter hitCounter;
+    private final Counter missCounter;
+
+    public CommentThreadCache(MeterRegistry meterRegistry,
+                              @Value("${comment.thread.cache.max-comments-per-thread:200}") int maxCommentsPerThread,
+                              @Value("${comment.thread.cache.max-bytes:16777216}") long maxBytes,
+                              @Value("${comment.thread.cache.ttl-ms:60000}") long ttlMillis) {
+        this.maxCommentsPerThread = maxCommentsPerThread;
+        this.maxBytes = maxBytes;
+        this.ttlMillis = ttlMillis;
+
+        this.hitCounter = meterRegistry.counter("comment.thread.cache.requests", "result", "hit");
+        this.missCounter = meterRegistry.counter("comment.thread.cache.requests", "result", "miss");
+        Gauge.builder("comment.thread.cache.bytes", usedBytes, AtomicLong::get).register(meterRegistry);
+        Gauge.builder("comment.thread.cache.threads", this, CommentThreadCache::size).register(meterRegistry);
+    }
+
+    /*
+        커서 다음부터 최대 limit 개의 댓글. 캐시로 응답할 수 없으면 null
+        글이 캐시에 없으면 loader 로 앞쪽 댓글을 (maxCommentsPerThread + 1 개) 읽어서 채운다.
+     */
+    public List<CommentResponseDto> findComments(long postId, PageCursor cursor, int limit, LongFunction<List<CommentResponseDto>> loader) {
+        CachedThread thread = get(postId);
+        boolean loaded = thread == null;
+        if (loaded) {
+            thread = load(postId, loader);
+        }
+
+        List<CommentResponseDto> comments = slice(thread, cursor, limit);
+        if (loaded || comments == null) { // DB 를 읽었으면 miss
+            missCounter.increment();
+            thread.misses.increment();
+        } else {
+            hitCounter.increment();
+            thread.hits.increment();
+        }
+        return comments;
+    }
+
+    public void addedAfterCommit(long postId, CommentResponseDto comment) {
+        TransactionUtil.afterCommit(() -> modify(postId, thread -> thread.add(comment, maxCommentsPerThread)));
+    }
+
+    public void updatedAfterCommit(long postId, CommentResponseDto comment) {
+        TransactionUtil.afterCommit(() -> modify(postId, thread -> thread.replace(comment)));
+    }
+
+    public void deletedAfterCommit(long postId, long commentId) {
+        TransactionUtil.afterCommit(() -> modify(postId, thread -> thread.remove(commentId)));
+    }
+
+    public void evictAfterCommit(long postId) {
+        TransactionUtil.afterCommit(() -> modify(postId, null));
+    }
+
+    public synchronized int size() {
+        return threads.size();
+    }
+
+    // 조회수 많은 글 순서로 limit 개의 글별 적중률
+    public synchronized List<ThreadStats> findTopThreads(int limit) {
+        return threads.entrySet().stream()
+                .map(entry -> new ThreadStats(entry.getKey(), entry.getValue()))
+                .sorted(Comparator.comparingLong(ThreadStats::getRequests).reversed())
+                .limit(limit)
+                .collect(Collectors.toList());
+    }
+
+    private synchronized CachedThread get(long postId) {
+        CachedThread thread = threads.get(postId);
+        if (thread != null && System.currentTimeMillis() - thread.loadedAt >= ttlMillis) {
+            remove(postId);
+            return null;
+        }
+        return thread;
+    }
+
+    private CachedThread load(long postId, LongFunction<List<CommentResponseDto>> loader) {
+        long loadedEpoch;
+        synchronized (this) {
+            loadedEpoch = epoch;
+        }
+
+        List<CommentResponseDto> comments = new ArrayList<>(loader.apply(postId));
+        boolean complete = comments.size() <= maxCommentsPerThread;
+        if (!complete) {
+            comments = new ArrayList<>(comments.subList(0, maxCommentsPerThread));
+        }
+        CachedThread thread = new CachedThread(comments, complete, System.currentTimeMillis());
+
+        synchronized (this) {
+            if (loadedEpoch == epoch) {
+                put(postId, thread);
+            }
+        }
+        return thread;
+    }
+
+    // action 이 null 이면 글을 캐시에서 뺀다.
+    private synchronized void modify(long postId, Consumer<CachedThread> action) {
+        epoch++;
+        CachedThread thread = threads.get(postId);
+        if (thread == null) {
+            return;
+        }
+        if (action == null) {
+            remove(postId);
+            return;
+        }
+
+        long before = thread.bytes;
+        action.accept(thread);
+        usedBytes.addAndGet(thread.bytes - before);
+        evictIfNeeded();
+    }
+
+    private void put(long postId, CachedThread thread) {
+        remove(postId);
+        if (thread.bytes > maxBytes) {
+            log.debug("comment thread cache 메모리 예산 초과로 캐시하지 않음: {}", postId);
+            return;
+        }
+        threads.put(postId, thread);
+        usedBytes.addAndGet(thread.bytes);
+        evictIfNeeded();
+    }
+
+    private void remove(long postId) {
+        CachedThread removed = threads.remove(postId);
+        if (removed != null) {
+            usedBytes.addAndGet(-removed.bytes);
+        }
+    }
+
+    private void evictIfNeeded() {
+        Iterator<Map.Entry<Long, CachedThread>> eldest = threads.entrySet().iterator();
+        while (usedBytes.get() > maxBytes && eldest.hasNext()) {
+            usedBytes.addAndGet(-eldest.next().getValue().bytes);
+            eldest.remove();
+        }
+    }
+
+    // limit 개를 채울 수 있거나 글의 끝까지 들고 있으면 응답한다.
+    private synchronized List<CommentResponseDto> slice(CachedThread thread, PageCursor cursor, int limit) {
+        List<CommentResponseDto> comments = thread.comments;
+        int from = 0;
+        if (cursor != null) {
+            CommentResponseDto key = CommentResponseDto.builder().createdAt(cursor.getKeyAsDateTime()).id(cursor.getId()).build();
+            int index = Collections.binarySearch(comments, key, ORDER);
+            from = index >= 0 ? index + 1 : -index - 1;
+        }
+
+        int to = from + limit;
+        if (to > comments.size() && !thread.complete) {
+            return null;
+        }
+        return new ArrayList<>(comments.subList(from, Math.min(to, comments.size())));
+    }
+
+    // 댓글 하나가 차지하는 메모리를 대략 계산 (문자열은 글자당 2바이트 + 객체 오버헤드)
+    private static long weigh(CommentResponseDto comment) {
+        long nicknameLength = comment.getAccountNickname() == null ? 0 : comment.getAccountNickname().length();
+        return 2L * (comment.getComment().length() + nicknameLength) + 128;
+    }
+
+    // 아래 메소드는 모두 CommentThreadCache 의 lock 을 잡은 상태에서만 호출된다.
+    private static class CachedThread {
+        private final List<CommentResponseDto> comments; // (createdAt, id) 오름차순
+        private boolean complete; // true 면 글의 모든 댓글을 들고 있다.
+        private final long loadedAt;
+        private long bytes;
+
+        private final LongAdder hits = new LongAdder();
+        private final LongAdder misses = new LongAdder();
+
+        private CachedThread(List<CommentResponseDto> comments, boolean complete, long loadedAt) {
+            this.comments = comments;
+            this.complete = complete;
+            this.loadedAt = loadedAt;
+            this.bytes = comments.stream().mapToLong(CommentThreadCache::weigh).sum();
+        }
+
+        private void add(CommentResponseDto comment, int maxComments) {
+            int index = Collections.binarySearch(comments, comment, ORDER);
+            if (index >= 0) {
+                return;
+            }
+
+            int insertAt = -index - 1;
+            if (insertAt == comments.size() && !complete) {
+                return; // 들고 있는 범위 뒤쪽 댓글
+            }
+
+            comments.add(insertAt, comment);
+            bytes += weigh(comment);
+            if (comments.size() > maxComments) {
+                bytes -= weigh(comments.remove(comments.size() - 1));
+                complete = false;
+            }
+        }
+
+        // 수정해도 createdAt, id 는 그대로라 위치는 바뀌지 않는다.
+        private void replace(CommentResponseDto comment) {
+            int index = Collections.binarySearch(comments, comment, ORDER);
+            if (index >= 0) {
+                bytes += weigh(comment) - weigh(comments.get(index));
+                comments.set(index, comment);
+            }
+        }
+
+        private void remove(long commentId) {
+            comments.removeIf(comment -> {
+                if (comment.getId() == commentId) {
+                    bytes -= weigh(comment);
+                    return true;
+                }
+                return false;
+            });
+        }
+    }
+
+    @Getter
+    public static class ThreadStats {
+        private final long postId;
+        private final int cachedComments;
+        private final long hits;
+        private final long misses;
+        private final long requests;
+        private final double hitRatio;
+
+        private ThreadStats(long postId, CachedThread thread) {
+            this.postId = postId;
+            this.cachedComments = thread.comments.size();
+            this.hits = thread.hits.sum();
+            this.misses = thread.misses.sum();
+            this.requests = hits + misses;
+            this.hitRatio = requests == 0 ? 0 : (double) hits / requests;
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package sungshin.sooon.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+// /actuator/commentthreads?limit=20 : 캐시된 글별 댓글 캐시 적중률 (요청 많은 글 순)
+@Component
+@Endpoint(id = "commentthreads")
+@RequiredArgsConstructor
+public class CommentThreadCacheEndpoint {
+    private final CommentThreadCache commentThreadCache;
+
+    @ReadOperation
+    public List<CommentThreadCache.ThreadStats> threads(@Nullable Integer limit) {
+        return commentThreadCache.findTopThreads(limit == null ? 20 : limit);
+    }
+}
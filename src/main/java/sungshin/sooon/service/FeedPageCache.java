@@ -0,0 +1,238 @@
+package sungshin.sooon.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import sungshin.sooon.dto.PagingPostResponseDto;
+import sungshin.sooon.dto.PostResponseDto;
+import sungshin.sooon.util.TransactionUtil;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/*
+    피드 앞쪽 페이지(기본: 0~2 페이지, size 20) 캐시
+        /api/v1/posts 트래픽 대부분은 첫 몇 페이지에 몰린다. 요청마다 쿼리 -> DTO 변환 -> JSON 직렬화를 반복하는 대신
+        이미 직렬화된 응답 바이트를 그대로 들고 있다가 돌려준다. 캐시 히트면 DB 도, Jackson 도 거치지 않는다.
+
+    무효화
+        글 작성/수정/삭제: 페이지 구성이 바뀌므로 커밋 직후 전부 비운다.
+        좋아요/댓글 수 변경: 바이럴 글에 좋아요가 몰리면 매번 비우는 게 오히려 손해라서, 바뀐 시각만 기록해두고
+            그 이후에 만들어진 지 counterTtlMillis 이상 지난 페이지만 만료로 취급한다. (카운트는 최대 counterTtlMillis 만큼 늦게 반영)
+
+    메모리는 maxBytes 로 제한한다. 예산을 넘는 페이지는 캐시하지 않고 매번 새로 만든다.
+
+    사용자별 값(likedByMe)
+        페이지 전체를 한 덩어리로 저장하면 사용자마다 다른 likedByMe 를 넣을 수 없다.
+        그래서 페이지를 [앞부분 ... "posts":[] + [글마다 마지막 '}' 를 뺀 JSON] + []... 뒷부분] 조각으로 나눠 저장하고,
+        응답할 때 글 조각 뒤에 ,"likedByMe":true} 만 이어 붙인다. 바이트 복사만 하므로 Jackson 은 여전히 거치지 않는다.
+ */
+@Slf4j
+@Component
+public class FeedPageCache {
+    private static final byte[] POSTS_FIELD = "\"posts\":[".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] LIKED_TRUE = ",\"likedByMe\":true}".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] LIKED_FALSE = ",\"likedByMe\":false}".getBytes(StandardCharsets.UTF_8);
+
+    private final ObjectMapper objectMapper;
+    private final int cachedPages;
+    private final int pageSize;
+    private final long maxBytes;
+    private final long counterTtlMillis;
+
+    private final Map<String, CachedPage> pages = new ConcurrentHashMap<>();
+    private final AtomicLong usedBytes = new AtomicLong();
+    private final AtomicLong lastCounterChange = new AtomicLong();
+    private long version; // lock 으로 보호. 무효화될 때마다 증가
+
+    private final Counter hitCounter;
+    private final Counter missCounter;
+
+    public FeedPageCache(ObjectMapper objectMapper,
+                         MeterRegistry meterRegistry,
+                         @Value("${feed.cache.pages:3}") int cachedPages,
+                         @Value("${feed.cache.page-size:20}") int pageSize,
+                         @Value("${feed.cache.max-bytes:4194304}") long maxBytes,
+                         @Value("${feed.cache.counter-ttl-ms:1000}") long counterTtlMillis) {
+        this.objectMapper = objectMapper;
+        this.cachedPages = cachedPages;
+        this.pageSize = pageSize;
+        this.maxBytes = maxBytes;
+        this.counterTtlMillis = counterTtlMillis;
+
+        this.hitCounter = meterRegistry.counter("feed.page.cache.requests", "result", "hit");
+        this.missCounter = meterRegistry.counter("feed.page.cache.requests", "result", "miss");
+        Gauge.builder("feed.page.cache.bytes", usedBytes, AtomicLong::get).register(meterRegistry);
+        Gauge.builder("feed.page.cache.pages", pages, Map::size).register(meterRegistry);
+    }
+
+    // 커서 모드는 첫 페이지(cursor 없음)만 캐시한다.
+    public boolean isCacheable(Integer page, String cursor, int size) {
+        if (size != pageSize) {
+            return false;
+        }
+        if (page == null) {
+            return cursor == null;
+        }
+        return page >= 0 && page < cachedPages;
+    }
+
+    public byte[] get(String order, Integer page, Supplier<PagingPostResponseDto> loader, Function<List<Long>, Set<Long>> likedPostIdsResolver) {
+        String key = order + ":" + (page == null ? "cursor" : page);
+
+        CachedPage cached = pages.get(key);
+        if (cached != null && !isCounterExpired(cached)) {
+            hitCounter.increment();
+        } else {
+            missCounter.increment();
+
+            long loadedVersion;
+            synchronized (this) {
+                loadedVersion = version;
+            }
+
+            cached = toCachedPage(loader.get());
+            put(key, cached, loadedVersion);
+        }
+
+        return cached.render(likedPostIdsResolver.apply(cached.postIds));
+    }
+
+    public void invalidateAfterCommit() {
+        TransactionUtil.afterCommit(this::invalidate);
+    }
+
+    public void counterChangedAfterCommit() {
+        TransactionUtil.afterCommit(() -> lastCounterChange.set(System.currentTimeMillis()));
+    }
+
+    public synchronized void invalidate() {
+        version++;
+        pages.clear();
+        usedBytes.set(0);
+    }
+
+    private boolean isCounterExpired(CachedPage cached) {
+        return cached.cachedAt < lastCounterChange.get()
+                && System.currentTimeMillis() - cached.cachedAt >= counterTtlMillis;
+    }
+
+    // 조회하는 사이에 무효화가 있었다면(version 변경) 예전 데이터일 수 있으므로 캐시에 넣지 않는다.
+    private synchronized void put(String key, CachedPage page, long loadedVersion) {
+        if (loadedVersion != version) {
+            return;
+        }
+
+        CachedPage previous = pages.get(key);
+        long previousSize = previous == null ? 0 : previous.size;
+        if (usedBytes.get() - previousSize + page.size > maxBytes) {
+            log.debug("feed page cache 메모리 예산 초과로 캐시하지 않음: {}", key);
+            return;
+        }
+
+        pages.put(key, page);
+        usedBytes.addAndGet(page.size - previousSize);
+    }
+
+    private CachedPage toCachedPage(PagingPostResponseDto page) {
+        // posts 만 빈 배열로 바꾼 껍데기를 직렬화해서 "posts":[ 앞뒤로 자른다.
+        PagingPostResponseDto envelope = PagingPostResponseDto.builder()
+                .currentPage(page.getCurrentPage())
+                .currentSize(page.getCurrentSize())
+                .hasNextPage(page.isHasNextPage())
+                .posts(List.of())
+                .nextCursor(page.getNextCursor())
+                .build();
+        byte[] envelopeBytes = serialize(envelope);
+        int split = indexOf(envelopeBytes, POSTS_FIELD) + POSTS_FIELD.length - 1; // '[' 다음, ']' 위치
+
+        byte[] head = Arrays.copyOfRange(envelopeBytes, 0, split);
+        byte[] tail = Arrays.copyOfRange(envelopeBytes, split, envelopeBytes.length);
+
+        List<PostResponseDto> posts = page.getPosts();
+        byte[][] postFragments = new byte[posts.size()][];
+        List<Long> postIds = new ArrayList<>(posts.size());
+        for (int i = 0; i < posts.size(); i++) {
+            // likedByMe 가 이미 들어 있거나 객체로 끝나지 않으면 이어 붙인 결과가 잘못된 JSON 이 된다. 조용히 깨지지 않도록 막는다.
+            if (posts.get(i).getLikedByMe() != null) {
+                throw new IllegalStateException("캐시할 피드 페이지에는 likedByMe 가 없어야 합니다.");
+            }
+            byte[] post = serialize(posts.get(i));
+            if (post.length < 2 || post[post.length - 1] != '}' || post[post.length - 2] == '{') {
+                throw new IllegalStateException("글 JSON 이 필드가 있는 객체가 아닙니다.");
+            }
+            postFragments[i] = Arrays.copyOf(post, post.length - 1); // 마지막 '}' 제거
+            postIds.add(posts.get(i).getId());
+        }
+
+        return new CachedPage(head, postFragments, List.copyOf(postIds), tail, System.currentTimeMillis());
+    }
+
+    private byte[] serialize(Object value) {
+        try {
+            return objectMapper.writeValueAsBytes(value);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("피드 페이지 직렬화에 실패했습니다.", e);
+        }
+    }
+
+    private static int indexOf(byte[] source, byte[] target) {
+        outer:
+        for (int i = 0; i <= source.length - target.length; i++) {
+            for (int j = 0; j < target.length; j++) {
+                if (source[i + j] != target[j]) {
+                    continue outer;
+                }
+            }
+            return i;
+        }
+        throw new IllegalStateException("피드 페이지 JSON 에서 posts 필드를 찾을 수 없습니다.");
+    }
+
+    private static class CachedPage {
+        private final byte[] head;
+        private final byte[][] postFragments;
+        private final List<Long> postIds;
+        private final byte[] tail;
+        private final long cachedAt;
+        private final long size;
+
+        private CachedPage(byte[] head, byte[][] postFragments, List<Long> postIds, byte[] tail, long cachedAt) {
+            this.head = head;
+            this.postFragments = postFragments;
+            this.postIds = postIds;
+            this.tail = tail;
+            this.cachedAt = cachedAt;
+
+            long size = head.length + tail.length;
+            for (byte[] fragment : postFragments) {
+                size += fragment.length + LIKED_TRUE.length; // 렌더링 결과 기준으로 대략 계산
+            }
+            this.size = size;
+        }
+
+        private byte[] render(Set<Long> likedPostIds) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream((int) size);
+            out.writeBytes(head);
+            for (int i = 0; i < postFragments.length; i++) {
+                if (i > 0) {
+                    out.write(',');
+                }
+                out.writeBytes(postFragments[i]);
+                out.writeBytes(likedPostIds.contains(postIds.get(i)) ? LIKED_TRUE : LIKED_FALSE);
+            }
+            out.writeBytes(tail);
+            return out.toByteArray();
+        }
+    }
+}
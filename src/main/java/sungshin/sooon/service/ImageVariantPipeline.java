@@ -0,0 +1,267 @@
+package sungshin.sooon.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import sungshin.sooon.domain.entity.ImageVariant;
+import sungshin.sooon.domain.repository.ImageVariantRepository;
+import sungshin.sooon.dto.ImageVariantResponseDto;
+import sungshin.sooon.exception.NotFoundException;
+import sungshin.sooon.util.ImageStorage;
+import sungshin.sooon.util.StoredImage;
+
+import javax.annotation.PreDestroy;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.*;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/*
+    업로드한 이미지의 축소본(썸네일) 생성 파이프라인
+        피드에서 휴대폰 원본 사진(수 MB)을 그대로 받지 않도록 가로 폭 widths(기본 160, 480, 1080)짜리 축소본을 만든다.
+        업로드 응답은 원본 저장이 끝나면 바로 나가고, 축소본은 전용 스레드 풀(threads 개, 대기열 queueCapacity)에서 나중에 채워진다.
+        대기열이 차면 그 이미지는 축소본 없이(REJECTED) 원본만 쓴다. 업로드 자체는 실패시키지 않는다.
+
+    처리
+        헤더만 읽어 원본 크기를 보고, 가장 큰 목표 폭에 맞춰 subsampling 해서 디코딩한다. (1200만 화소 원본을 통째로 힙에 올리지 않음)
+        큰 폭부터 차례로 줄이고, 다음 폭은 직전 결과에서 줄인다. 원본보다 크거나 같은 폭은 만들지 않는다.
+        알파 채널이 있으면 png, 아니면 jpg 로 저장하고 ImageVariant 에 (원본 URL, 폭, URL) 을 기록한다.
+            디코딩 결과는 indexed, CMYK 등 인코더가 못 쓰는 형식일 수 있어서, 폭이 이미 목표와 같아도 항상 RGB(알파면 ARGB) 버퍼에 다시 그린다.
+        다 만들면 FeedPageCache 를 비운다. 피드 응답에 축소본(PostResponseDto.images)이 들어가는데, 보통 첫 피드 조회보다 늦게 끝나기 때문이다.
+        ImageIO 가 읽지 못하는 형식(HEIC, WebP 등)은 SKIPPED
+        원본 화소 수(가로 x 세로, 헤더 값)가 maxPixels 를 넘으면 디코딩하지 않고 SKIPPED
+            subsampling 은 가로 기준이라 아주 긴 이미지나 헤더만 거대한 압축 폭탄은 줄여 읽어도 힙을 크게 잡는다.
+
+    진행 상황은 메모리의 Job 으로 추적하고(GET /api/v1/images/variants?url=), 끝난 Job 은 jobTtl 뒤에 지운다. 그 뒤로는 DB 기록으로 답한다.
+    종료 시 대기 중인 작업은 버린다. (그 이미지는 원본만 쓴다)
+ */
+@Slf4j
+@Component
+public class ImageVariantPipeline {
+    private final ImageStorage imageStorage;
+    private final ImageVariantRepository imageVariantRepository;
+    private final FeedPageCache feedPageCache;
+    private final int[] widths; // 내림차순
+    private final long maxPixels;
+    private final long jobTtlMillis;
+    private final ThreadPoolExecutor executor;
+
+    private final Map<String, Job> jobs = new ConcurrentHashMap<>(); // 원본 URL -> 진행 상황
+
+    private final Counter doneCounter;
+    private final Counter skippedCounter;
+    private final Counter failedCounter;
+    private final Counter rejectedCounter;
+    private final Counter tooLargeCounter;
+
+    public ImageVariantPipeline(ImageStorage imageStorage,
+                                ImageVariantRepository imageVariantRepository,
+                                FeedPageCache feedPageCache,
+                                MeterRegistry meterRegistry,
+                                @Value("${image.variant.widths:160,480,1080}") int[] widths,
+                                @Value("${image.variant.max-pixels:40000000}") long maxPixels,
+                                @Value("${image.variant.threads:2}") int threads,
+                                @Value("${image.variant.queue-capacity:200}") int queueCapacity,
+                                @Value("${image.variant.job-ttl-ms:600000}") long jobTtlMillis) {
+        this.imageStorage = imageStorage;
+        this.imageVariantRepository = imageVariantRepository;
+        this.feedPageCache = feedPageCache;
+        this.widths = Arrays.stream(widths).boxed().sorted(Comparator.reverseOrder()).mapToInt(Integer::intValue).toArray();
+        this.maxPixels = maxPixels;
+        this.jobTtlMillis = jobTtlMillis;
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "image-variant-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+
+        ExecutorServiceMetrics.monitor(meterRegistry, executor, "image.variant");
+        this.doneCounter = meterRegistry.counter("image.variant.jobs", "result", "done");
+        this.skippedCounter = meterRegistry.counter("image.variant.jobs", "result", "skipped");
+        this.failedCounter = meterRegistry.counter("image.variant.jobs", "result", "failed");
+        this.rejectedCounter = meterRegistry.counter("image.variant.jobs", "result", "rejected");
+        this.tooLargeCounter = meterRegistry.counter("image.variant.jobs", "result", "too_large");
+    }
+
+    // 업로드 직후 호출. 바로 반환한다.
+    public void submit(StoredImage image) {
+        Job job = new Job();
+        jobs.put(image.getUrl(), job);
+        try {
+            executor.execute(() -> process(image, job));
+        } catch (RejectedExecutionException e) {
+            rejectedCounter.increment();
+            job.finish(Status.REJECTED);
+        }
+    }
+
+    public ImageVariantResponseDto findProgress(String originalUrl) {
+        Job job = jobs.get(originalUrl);
+        if (job != null) {
+            return job.toDto(originalUrl);
+        }
+
+        List<ImageVariant> variants = imageVariantRepository.findByOriginalUrlOrderByWidth(originalUrl);
+        if (variants.isEmpty()) {
+            throw new NotFoundException("축소본 정보가 없는 이미지입니다.");
+        }
+        return ImageVariantResponseDto.builder()
+                .originalUrl(originalUrl)
+                .status(Status.DONE.name())
+                .completed(variants.size())
+                .total(variants.size())
+                .variants(variants.stream().collect(Collectors.toMap(ImageVariant::getWidth, ImageVariant::getUrl, (a, b) -> a, TreeMap::new)))
+                .build();
+    }
+
+    @Scheduled(fixedDelayString = "${image.variant.job-ttl-ms:600000}")
+    public void sweepJobs() {
+        long now = System.currentTimeMillis();
+        jobs.values().removeIf(job -> job.finishedAt > 0 && now - job.finishedAt > jobTtlMillis);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        List<Runnable> dropped = executor.shutdownNow();
+        log.info("이미지 축소본 파이프라인 종료: 대기 중이던 {}건은 만들지 않음", dropped.size());
+    }
+
+    private void process(StoredImage image, Job job) {
+        job.status = Status.RUNNING;
+        try (InputStream inputStream = imageStorage.open(image.getKey());
+             ImageInputStream imageInputStream = ImageIO.createImageInputStream(inputStream)) {
+            Iterator<ImageReader> readers = imageInputStream == null ? Collections.<ImageReader>emptyIterator() : ImageIO.getImageReaders(imageInputStream);
+            if (!readers.hasNext()) {
+                skippedCounter.increment();
+                job.finish(Status.SKIPPED);
+                return;
+            }
+
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(imageInputStream, true, true);
+                int sourceWidth = reader.getWidth(0);
+                if ((long) sourceWidth * reader.getHeight(0) > maxPixels) {
+                    log.info("이미지 축소본 생략(화소 수 초과): {} ({}x{})", image.getKey(), sourceWidth, reader.getHeight(0));
+                    tooLargeCounter.increment();
+                    job.finish(Status.SKIPPED);
+                    return;
+                }
+                int[] targets = Arrays.stream(widths).filter(width -> width < sourceWidth).toArray();
+                if (targets.length == 0) { // 이미 충분히 작다.
+                    skippedCounter.increment();
+                    job.finish(Status.SKIPPED);
+                    return;
+                }
+                job.total = targets.length;
+
+                // 가장 큰 목표 폭보다 작아지지 않는 만큼만 건너뛰며 디코딩
+                ImageReadParam param = reader.getDefaultReadParam();
+                int subsampling = Math.max(1, sourceWidth / targets[0]);
+                param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                BufferedImage current = reader.read(0, param);
+
+                boolean alpha = current.getColorModel().hasAlpha();
+                String format = alpha ? "png" : "jpg";
+                for (int width : targets) {
+                    current = resize(current, width, alpha);
+                    String url = imageStorage.store(variantKey(image.getKey(), width, format), encode(current, format), alpha ? "image/png" : "image/jpeg");
+                    imageVariantRepository.save(ImageVariant.builder().originalUrl(image.getUrl()).width(width).url(url).build());
+                    job.completed(width, url);
+                }
+            } finally {
+                reader.dispose();
+            }
+            feedPageCache.invalidate();
+            doneCounter.increment();
+            job.finish(Status.DONE);
+        } catch (Exception e) {
+            log.warn("이미지 축소본 생성 실패: {}", image.getKey(), e);
+            failedCounter.increment();
+            job.finish(Status.FAILED);
+        }
+    }
+
+    // 폭이 같아도 새 버퍼에 그린다. (디코딩한 원본의 색 형식을 그대로 인코더에 넘기지 않는다)
+    private static BufferedImage resize(BufferedImage source, int targetWidth, boolean alpha) {
+        int width = Math.min(targetWidth, source.getWidth());
+        int height = Math.max(1, (int) Math.round((double) source.getHeight() * width / source.getWidth()));
+        BufferedImage target = new BufferedImage(width, height, alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+        Graphics2D graphics = target.createGraphics();
+        try {
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.drawImage(source, 0, 0, width, height, null);
+        } finally {
+            graphics.dispose();
+        }
+        return target;
+    }
+
+    private static byte[] encode(BufferedImage image, String format) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        if (!ImageIO.write(image, format, outputStream)) {
+            throw new IOException("인코더가 없습니다: " + format);
+        }
+        return outputStream.toByteArray();
+    }
+
+    // static/abc.jpg -> static/abc_w480.jpg
+    static String variantKey(String key, int width, String format) {
+        int slash = key.lastIndexOf('/');
+        int dot = key.lastIndexOf('.');
+        String base = dot > slash ? key.substring(0, dot) : key;
+        return base + "_w" + width + "." + format;
+    }
+
+    private enum Status {
+        QUEUED, RUNNING, DONE, SKIPPED, FAILED, REJECTED
+    }
+
+    // 한 이미지의 진행 상황. 작업 스레드 하나만 쓰고 조회 요청이 읽는다.
+    private static class Job {
+        private volatile Status status = Status.QUEUED;
+        private volatile int total;
+        private volatile long finishedAt;
+        private final Map<Integer, String> variants = new ConcurrentSkipListMap<>();
+
+        void completed(int width, String url) {
+            variants.put(width, url);
+        }
+
+        void finish(Status status) {
+            this.status = status;
+            this.finishedAt = System.currentTimeMillis();
+        }
+
+        ImageVariantResponseDto toDto(String originalUrl) {
+            return ImageVariantResponseDto.builder()
+                    .originalUrl(originalUrl)
+                    .status(status.name())
+                    .completed(variants.size())
+                    .total(total)
+                    .variants(new TreeMap<>(variants))
+                    .build();
+        }
+    }
+}
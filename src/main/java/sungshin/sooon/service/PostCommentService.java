@@ -2,18 +2,24 @@ package sungshin.sooon.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import sungshin.sooon.domain.entity.Account;
-import sungshin.sooon.domain.entity.Post;
+import sungshin.sooon.domain.entity.PostAnonymousAlias;
 import sungshin.sooon.domain.entity.PostComment;
+import sungshin.sooon.domain.repository.PostAnonymousAliasRepository;
 import sungshin.sooon.domain.repository.PostCommentRepository;
+import sungshin.sooon.domain.repository.PostRepository;
 import sungshin.sooon.dto.CommentRequestDto;
 import sungshin.sooon.dto.CommentResponseDto;
+import sungshin.sooon.dto.PageCursor;
+import sungshin.sooon.dto.PagingCommentResponseDto;
 import sungshin.sooon.exception.NotFoundException;
 
 import java.util.List;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
 @Service
@@ -21,96 +27,176 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class PostCommentService {
     private final PostCommentRepository postCommentRepository;
+    private final PostRepository postRepository;
+    private final PostAnonymousAliasRepository postAnonymousAliasRepository;
+    private final FeedPageCache feedPageCache;
+    private final TrendingPostRanking trendingPostRanking;
+    private final CommentThreadCache commentThreadCache;
 
-    @Transactional(readOnly = true)
-    public List<CommentResponseDto> findAllByPost(Post post) {
-        return postCommentRepository
-                .findAllByPost(post)
-                .stream()
+    /*
+        댓글은 오래된 순서로 읽으므로 커서도 (createdAt, id) 오름차순 기준이다. 첫 페이지는 cursor 없이 호출한다.
+        CommentThreadCache 에서 응답할 수 있으면 SQL 없이 끝나므로 트랜잭션(=커넥션)도 열지 않는다.
+     */
+    public PagingCommentResponseDto findAllByPost(long postId, String cursor, int size) {
+        PageCursor pageCursor = cursor == null ? null : PageCursor.decode(cursor);
+        int limit = size + 1; // 한 건 더 읽어서 다음 페이지 여부 판단
+
+        List<CommentResponseDto> comments = commentThreadCache.findComments(postId, pageCursor, limit, this::findThreadHead);
+        if (comments == null) { // 캐시에 들고 있는 범위 뒤쪽 페이지
+            comments = findComments(postId, pageCursor, limit);
+        }
+
+        boolean hasNext = comments.size() > size;
+        if (hasNext) {
+            comments = comments.subList(0, size);
+        }
+
+        String nextCursor = null;
+        if (hasNext) {
+            CommentResponseDto last = comments.get(comments.size() - 1);
+            nextCursor = PageCursor.of(last.getCreatedAt(), last.getId()).encode();
+        }
+
+        return PagingCommentResponseDto.builder()
+                .comments(comments)
+                .hasNext(hasNext)
+                .nextCursor(nextCursor)
+                .build();
+    }
+
+    // 캐시에 채울 앞쪽 댓글. 댓글이 하나도 없을 때만 글이 있는지 따로 확인한다.
+    private List<CommentResponseDto> findThreadHead(long postId) {
+        List<CommentResponseDto> comments = findComments(postId, null, commentThreadCache.getMaxCommentsPerThread() + 1);
+        if (comments.isEmpty() && !postRepository.existsById(postId)) {
+            throw new NotFoundException("게시글이 존재하지 않습니다.");
+        }
+        return comments;
+    }
+
+    private List<CommentResponseDto> findComments(long postId, PageCursor cursor, int limit) {
+        PageRequest pageRequest = PageRequest.of(0, limit);
+        List<PostComment> comments = cursor == null
+                ? postCommentRepository.findPageByPostId(postId, pageRequest)
+                : postCommentRepository.findPageByPostIdAfter(postId, cursor.getKeyAsDateTime(), cursor.getId(), pageRequest);
+        return comments.stream()
                 .map(CommentResponseDto::of)
                 .collect(Collectors.toList());
     }
 
+    /*
+        댓글 단건 조회/수정/삭제는 (댓글 id, 글 id) 조건 쿼리 하나로 "글에 달린 댓글인지" 와 작성자를 함께 확인한다.
+        Post 를 따로 읽지 않고, 한 트랜잭션(커넥션 하나) 안에서 정해진 몇 개의 SQL 로 끝난다.
+     */
     @Transactional(readOnly = true)
-    public CommentResponseDto findById(long id) {
-        PostComment postComment = findByIdOrThrowNotFoundException(id);
+    public CommentResponseDto findById(long postId, long id) {
+        PostComment postComment = findByIdOrThrowNotFoundException(postId, id);
         return CommentResponseDto.of(postComment);
     }
 
+    /*
+        글이 있는지는 잠그지 않는 읽기(existsById)로 확인하고, 글은 프록시(getById)로만 연결해서 읽지 않는다.
+        comment_count 증가(= post 행 쓰기 잠금)는 커밋 직전 마지막에 한다.
+            처음에 하면 익명 번호 발급과 댓글 insert 동안 내내 글 행을 잠가서, 인기글에 댓글 다는 요청이 전부 한 줄로 선다.
+     */
     @Transactional
-    public CommentResponseDto save(Account account, Post post, CommentRequestDto commentRequestDto) {
+    public CommentResponseDto save(Account account, long postId, CommentRequestDto commentRequestDto) {
+        if (!postRepository.existsById(postId)) {
+            throw new NotFoundException("게시글이 존재하지 않습니다.");
+        }
+
         //익명이 아닌 경우
         PostComment postComment = commentRequestDto.toComment();
         postComment.setAccount(account);
-        postComment.setPost(post);
+        postComment.setPost(postRepository.getById(postId));
 
         //익명인 경우 orderNum 설정
         if (commentRequestDto.isAnonymous()) {
-            postComment.setOrderNum(getCurrentPostCommentOrderNum(account, post));
+            postComment.setOrderNum(getAnonymousAliasNum(account, postId));
+        }
+
+        postCommentRepository.save(postComment);
+        if (postRepository.addCommentCount(postId, 1) == 0) { // 그 사이 글이 지워졌다.
+            throw new NotFoundException("게시글이 존재하지 않습니다.");
         }
+        feedPageCache.counterChangedAfterCommit();
+        trendingPostRanking.commentChangedAfterCommit(postId, 1);
 
-        return CommentResponseDto.of(postCommentRepository.save(postComment));
+        CommentResponseDto commentResponseDto = CommentResponseDto.of(postComment);
+        commentThreadCache.addedAfterCommit(postId, commentResponseDto);
+        return commentResponseDto;
     }
 
     /*
-    NESTED
-    부모 트랜잭션이 존재한다면 중첩 트랜잭션을 생성합니다.
-    중첩된 트랜잭션 내부에서 롤백 발생시 해당 중첩 트랜잭션의 시작 지점 까지만 롤백됩니다.
-    중첩 트랜잭션은 부모 트랜잭션이 커밋될 때 같이 커밋됩니다.
-    부모 트랜잭션이 존재하지 않는다면 새로운 트랜잭션을 생성합니다.
-    출처:https://deveric.tistory.com/86
+        익명 번호(익명N) 발급
+            이미 번호를 받은 사람이면 (post_id, account_id) 유니크 인덱스 조회 한 번으로 끝난다.
+            처음이면 글 행을 잠그고(select ... for update) 다시 확인한 다음 글의 anonymous_seq 를 하나 올려 새 번호를 발급한다.
+            동시에 처음 댓글을 다는 두 요청은 (앱 서버가 여러 대여도) 글 행 잠금에서 한 줄로 서므로 같은 번호를 받을 수 없다.
+            댓글이 몇 개 달려 있든 쿼리 수와 비용은 같다.
      */
-    @Transactional(readOnly = true)
-    private long getCurrentPostCommentOrderNum(Account account, Post post) {
-        PostComment CommentWithMyOrderNum = postCommentRepository.findTop1ByAccountAndPostAndIsAnonymous(account, post, true);
-        if (CommentWithMyOrderNum != null) {
-            return CommentWithMyOrderNum.getOrderNum();
-        } else {
-            return getLastPostCommentOrderNum(post);
+    private long getAnonymousAliasNum(Account account, long postId) {
+        Optional<Long> aliasNum = postAnonymousAliasRepository.findAliasNum(postId, account.getId());
+        if (aliasNum.isPresent()) {
+            return aliasNum.get();
         }
-    }
 
-    @Transactional(readOnly = true)
-    private long getLastPostCommentOrderNum(Post post) {
-        PostComment CommentWithLastOrderNum = postCommentRepository.findTop1ByPostAndIsAnonymousOrderByCreatedAtDesc(post, true);
-        if (CommentWithLastOrderNum != null) {
-            return CommentWithLastOrderNum.getOrderNum() + 1;
-        } else {
-            return 1;
+        long lastAliasNum = postRepository
+                .findAnonymousSeqForUpdate(postId)
+                .orElseThrow(() -> new NotFoundException("게시글이 존재하지 않습니다."));
+
+        aliasNum = postAnonymousAliasRepository.findAliasNumForUpdate(postId, account.getId());
+        if (aliasNum.isPresent()) { // 잠금을 기다리는 사이 같은 사람의 다른 요청이 먼저 발급받은 경우
+            return aliasNum.get();
         }
+
+        long newAliasNum = lastAliasNum + 1;
+        postRepository.incrementAnonymousSeq(postId);
+        postAnonymousAliasRepository.save(PostAnonymousAlias.builder()
+                .post(postRepository.getById(postId))
+                .account(account)
+                .aliasNum(newAliasNum)
+                .build());
+        return newAliasNum;
     }
 
     @Transactional
-    public void delete(Account account, long id) {
-        PostComment postComment = findByIdOrThrowNotFoundException(id);
+    public void delete(Account account, long postId, long id) {
+        PostComment postComment = findByIdOrThrowNotFoundException(postId, id);
 
-        if (postComment.getAccount().getId() != account.getId()) {
+        if (!postComment.getAccount().getId().equals(account.getId())) { // Long 끼리 != 는 참조 비교
             throw new AccessDeniedException("삭제 권한이 없습니다.");
         }
 
         postCommentRepository.delete(postComment);
+        postRepository.addCommentCount(postId, -1);
+        feedPageCache.counterChangedAfterCommit();
+        trendingPostRanking.commentChangedAfterCommit(postId, -1);
+        commentThreadCache.deletedAfterCommit(postId, id);
     }
 
     @Transactional
-    public CommentResponseDto update(Account account, Post post, long id, CommentRequestDto commentRequestDto) {
-        PostComment postComment = findByIdOrThrowNotFoundException(id);
+    public CommentResponseDto update(Account account, long postId, long id, CommentRequestDto commentRequestDto) {
+        PostComment postComment = findByIdOrThrowNotFoundException(postId, id);
 
-        if (postComment.getAccount().getId() != account.getId()) {
+        if (!postComment.getAccount().getId().equals(account.getId())) { // Long 끼리 != 는 참조 비교
             throw new AccessDeniedException("수정 권한이 없습니다.");
         }
 
         //유저가 제일 처음 댓글을 닉네임으로 달고 그 후에 익명으로 수정하여 orderNum이 필요한 경우 고려
         if (commentRequestDto.isAnonymous()) {
-            postComment.setOrderNum(getCurrentPostCommentOrderNum(account, post));
+            postComment.setOrderNum(getAnonymousAliasNum(account, postId));
         }
 
         commentRequestDto.apply(postComment);
-        return CommentResponseDto.of(postComment);
+
+        CommentResponseDto commentResponseDto = CommentResponseDto.of(postComment);
+        commentThreadCache.updatedAfterCommit(postId, commentResponseDto);
+        return commentResponseDto;
     }
 
-    private PostComment findByIdOrThrowNotFoundException(long id) {
+    // 다른 글의 댓글 id 로 요청하면 없는 댓글로 취급한다.
+    private PostComment findByIdOrThrowNotFoundException(long postId, long id) {
         PostComment postComment = postCommentRepository
-                .findById(id)
+                .findByIdAndPostId(id, postId)
                 .orElseThrow(() -> new NotFoundException("댓글이 존재하지 않습니다."));
         return postComment;
     }
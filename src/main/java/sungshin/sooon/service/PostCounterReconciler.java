@@ -0,0 +1,43 @@
+package sungshin.sooon.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import sungshin.sooon.domain.repository.PostRepository;
+
+/*
+    post.like_count, post.comment_count 는 좋아요/댓글이 바뀔 때마다 증감으로만 관리된다.
+    수동으로 데이터를 지웠거나 배포 중 실패한 요청 등으로 실제 개수와 어긋날 수 있으므로 트래픽이 적은 시간에 한 번씩 다시 세어서 맞춘다.
+
+    기동할 때도 한 번 돌린다.
+        컬럼이 처음 추가된 배포에서는 기존 글이 전부 0 으로 시작하므로(default 0), 다음 새벽 보정까지 좋아요순/인기순에서 맨 뒤로 밀린다.
+        인기 글 랭킹(TrendingPostRanking)이 기동 시 카운트를 읽어 가기 전에 끝나도록 가장 먼저 실행한다.
+        수동으로 미리 맞추려면:
+            update post p set like_count = (select count(1) from post_like pl where pl.post_id = p.post_id);
+            update post p set comment_count = (select count(1) from post_comment pc where pc.post_id = p.post_id);
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class PostCounterReconciler {
+    private final PostRepository postRepository;
+
+    @Scheduled(cron = "${post.counter.reconcile-cron:0 0 4 * * *}") // 기본값: 매일 새벽 4시
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @Transactional
+    public void reconcile() {
+        int likeFixed = postRepository.reconcileLikeCount();
+        int commentFixed = postRepository.reconcileCommentCount();
+
+        if (likeFixed > 0 || commentFixed > 0) {
+            log.info("post 카운터 보정: like_count {}건, comment_count {}건", likeFixed, commentFixed);
+        }
+    }
+}
@@ -0,0 +1,273 @@
+package sungshin.sooon.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.EqualsAndHashCode;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import sungshin.sooon.exception.ServiceBusyException;
+import sungshin.sooon.util.TransactionUtil;
+
+import javax.annotation.PreDestroy;
+import java.sql.Statement;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/*
+    좋아요 쓰기 지연(write-behind) 버퍼
+        인기글 하나에 초당 수천 건의 좋아요가 몰리면 findById -> findByAccountAndPost -> insert 를 각각 동기 트랜잭션으로 처리하느라
+        같은 post 행(like_count)을 두고 경합이 생긴다.
+        => 요청은 메모리에 (account, post) -> 좋아요/취소 상태만 기록하고 바로 응답한다.
+           같은 (account, post) 에 대한 요청은 마지막 상태 하나로 합쳐진다(좋아요 후 바로 취소하면 DB 에는 아무것도 쓰지 않음).
+           flushInterval 마다 모아둔 요청을 JDBC 배치로 한 트랜잭션에서 반영하고, like_count 는 글마다 합산한 값으로 한 번만 갱신한다.
+
+    멱등성
+        insert 는 "이미 있으면 넣지 않는" insert ... select ... where not exists 형태이고, (post_id, account_id) 유니크 제약이 최종 방어선이다.
+        delete 도 없는 행이면 0건으로 끝난다. 실제로 바뀐 행 수만큼만 like_count 를 증감한다.
+        없는 글에 대한 좋아요는 PostService 가 먼저 404 로 막고, 그 사이 글이 지워졌으면 insert ... select 에서 걸러져 0건이 된다.
+
+    꺼낸(drain) 요청은 배치가 커밋되고 PostLikeIndex 에 반영될 때까지 inFlight 에 남겨 둔다.
+        그 사이에도 findPendingState 가 요청한 상태를 돌려주므로, 비트맵이 아직 예전 상태인 동안 isLiked/likedByMe 가 거꾸로 보이지 않는다.
+
+    종료 시(@PreDestroy) 남은 요청을 모두 반영한 뒤 내려간다.
+ */
+@Slf4j
+@Component
+public class PostLikeBuffer {
+    private static final String INSERT_LIKE = "insert into post_like (account_id, post_id)" +
+            " select ?, p.post_id from post p where p.post_id = ?" +
+            " and not exists (select 1 from post_like pl where pl.post_id = ? and pl.account_id = ?)";
+    private static final String DELETE_LIKE = "delete from post_like where post_id = ? and account_id = ?";
+    private static final String ADD_LIKE_COUNT = "update post set like_count = like_count + ? where post_id = ?";
+    private static final String RECOUNT_LIKE_COUNT = "update post set like_count = (select count(1) from post_like pl where pl.post_id = ?) where post_id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final FeedPageCache feedPageCache;
+    private final TrendingPostRanking trendingPostRanking;
+    private final PostLikeIndex postLikeIndex;
+    private final int maxPending;
+    private final int batchSize;
+
+    private final Map<LikeKey, PendingLike> pending = new ConcurrentHashMap<>();
+    private final Map<LikeKey, PendingLike> inFlight = new ConcurrentHashMap<>(); // 꺼냈지만 아직 PostLikeIndex 에 반영되지 않은 요청
+
+    private final Counter dedupedCounter;
+    private final Counter droppedCounter;
+    private final Counter appliedCounter;
+    private final Counter noopCounter;
+    private final DistributionSummary flushSize;
+    private final Timer lag;
+
+    public PostLikeBuffer(JdbcTemplate jdbcTemplate,
+                          PlatformTransactionManager transactionManager,
+                          FeedPageCache feedPageCache,
+                          TrendingPostRanking trendingPostRanking,
+                          PostLikeIndex postLikeIndex,
+                          MeterRegistry meterRegistry,
+                          @Value("${post.like.buffer.max-pending:100000}") int maxPending,
+                          @Value("${post.like.buffer.batch-size:1000}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.feedPageCache = feedPageCache;
+        this.trendingPostRanking = trendingPostRanking;
+        this.postLikeIndex = postLikeIndex;
+        this.maxPending = maxPending;
+        this.batchSize = batchSize;
+
+        this.dedupedCounter = meterRegistry.counter("post.like.buffer.ops", "result", "deduped");
+        this.droppedCounter = meterRegistry.counter("post.like.buffer.ops", "result", "dropped");
+        this.appliedCounter = meterRegistry.counter("post.like.buffer.ops", "result", "applied");
+        this.noopCounter = meterRegistry.counter("post.like.buffer.ops", "result", "noop");
+        this.flushSize = meterRegistry.summary("post.like.buffer.flush.size");
+        this.lag = meterRegistry.timer("post.like.buffer.lag");
+        Gauge.builder("post.like.buffer.pending", pending, Map::size).register(meterRegistry);
+    }
+
+    public void like(long accountId, long postId) {
+        enqueue(new LikeKey(accountId, postId), true);
+    }
+
+    public void unlike(long accountId, long postId) {
+        enqueue(new LikeKey(accountId, postId), false);
+    }
+
+    // 아직 DB(와 PostLikeIndex)에 반영되지 않은 요청이 있으면 그 상태(true: 좋아요, false: 취소), 없으면 null
+    public Boolean findPendingState(long accountId, long postId) {
+        LikeKey key = new LikeKey(accountId, postId);
+        PendingLike pendingLike = pending.get(key); // drain 은 inFlight 에 먼저 넣고 pending 에서 지우므로 이 순서로 보면 빈틈이 없다.
+        if (pendingLike == null) {
+            pendingLike = inFlight.get(key);
+        }
+        return pendingLike == null ? null : pendingLike.liked;
+    }
+
+    private void enqueue(LikeKey key, boolean liked) {
+        if (pending.size() >= maxPending && !pending.containsKey(key)) {
+            droppedCounter.increment();
+            throw new ServiceBusyException("요청이 많아 잠시 후 다시 시도해주세요.", 1);
+        }
+
+        boolean[] deduped = {false};
+        pending.compute(key, (k, old) -> {
+            if (old == null) {
+                return new PendingLike(liked, System.nanoTime());
+            }
+            deduped[0] = true;
+            return new PendingLike(liked, old.enqueuedAt); // 마지막 상태만 남기고, 대기 시간(lag)은 처음 들어온 시점 기준
+        });
+        if (deduped[0]) {
+            dedupedCounter.increment();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${post.like.buffer.flush-interval-ms:200}")
+    public synchronized void flush() {
+        while (!pending.isEmpty()) {
+            List<Map.Entry<LikeKey, PendingLike>> batch = drain();
+            if (batch.isEmpty()) {
+                return;
+            }
+            apply(batch);
+        }
+    }
+
+    @PreDestroy
+    public void drainOnShutdown() {
+        log.info("종료 전 좋아요 버퍼 반영: {}건", pending.size());
+        flush();
+    }
+
+    // remove 로 하나씩 꺼내므로 꺼낸 뒤에 들어온 같은 키의 요청은 다음 배치에서 순서대로 반영된다.
+    private List<Map.Entry<LikeKey, PendingLike>> drain() {
+        List<Map.Entry<LikeKey, PendingLike>> batch = new ArrayList<>(Math.min(batchSize, pending.size()));
+        Iterator<Map.Entry<LikeKey, PendingLike>> entries = pending.entrySet().iterator();
+        while (entries.hasNext() && batch.size() < batchSize) {
+            Map.Entry<LikeKey, PendingLike> entry = entries.next();
+            LikeKey key = entry.getKey();
+            PendingLike pendingLike = entry.getValue();
+            inFlight.put(key, pendingLike);
+            if (pending.remove(key, pendingLike)) {
+                batch.add(new AbstractMap.SimpleImmutableEntry<>(key, pendingLike));
+            } else {
+                inFlight.remove(key, pendingLike); // 그 사이 새 요청으로 바뀌었다. 다음 배치에서 꺼낸다.
+            }
+        }
+        return batch;
+    }
+
+    private void apply(List<Map.Entry<LikeKey, PendingLike>> batch) {
+        long now = System.nanoTime();
+        batch.forEach(entry -> lag.record(now - entry.getValue().enqueuedAt, TimeUnit.NANOSECONDS));
+        flushSize.record(batch.size());
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> write(batch));
+        } catch (RuntimeException e) {
+            // 배치 전체가 실패하면(예: 그 사이 탈퇴한 계정의 FK 위반) 한 건씩 다시 시도해서 실패한 건만 버린다.
+            log.warn("좋아요 배치 반영 실패, 건별로 재시도합니다. size={}", batch.size(), e);
+            for (Map.Entry<LikeKey, PendingLike> entry : batch) {
+                try {
+                    transactionTemplate.executeWithoutResult(status -> write(List.of(entry)));
+                } catch (RuntimeException single) {
+                    droppedCounter.increment();
+                    log.warn("좋아요 반영 실패로 버림: {}", entry.getKey(), single);
+                }
+            }
+        } finally {
+            // 커밋됐으면 afterCommit 에서 이미 PostLikeIndex 에 반영됐고, 버렸으면 DB 상태 그대로다. 어느 쪽이든 더 들고 있을 필요가 없다.
+            batch.forEach(entry -> inFlight.remove(entry.getKey(), entry.getValue()));
+        }
+    }
+
+    private void write(List<Map.Entry<LikeKey, PendingLike>> batch) {
+        List<Object[]> inserts = new ArrayList<>();
+        List<Object[]> deletes = new ArrayList<>();
+        List<LikeKey> insertKeys = new ArrayList<>();
+        List<LikeKey> deleteKeys = new ArrayList<>();
+        for (Map.Entry<LikeKey, PendingLike> entry : batch) {
+            LikeKey key = entry.getKey();
+            if (entry.getValue().liked) {
+                inserts.add(new Object[]{key.accountId, key.postId, key.postId, key.accountId});
+                insertKeys.add(key);
+            } else {
+                deletes.add(new Object[]{key.postId, key.accountId});
+                deleteKeys.add(key);
+            }
+        }
+
+        Map<Long, Long> deltas = new HashMap<>();
+        Set<Long> unknown = new HashSet<>();
+        collect(jdbcTemplate.batchUpdate(INSERT_LIKE, inserts), insertKeys, 1, deltas, unknown);
+        collect(jdbcTemplate.batchUpdate(DELETE_LIKE, deletes), deleteKeys, -1, deltas, unknown);
+
+        List<Object[]> counterUpdates = new ArrayList<>();
+        deltas.forEach((postId, delta) -> {
+            if (delta != 0 && !unknown.contains(postId)) {
+                counterUpdates.add(new Object[]{delta, postId});
+            }
+        });
+        jdbcTemplate.batchUpdate(ADD_LIKE_COUNT, counterUpdates);
+
+        // 드라이버가 배치 결과를 건수 대신 SUCCESS_NO_INFO 로 주면 증감값을 알 수 없으므로 해당 글만 다시 센다.
+        List<Object[]> recounts = new ArrayList<>();
+        unknown.forEach(postId -> recounts.add(new Object[]{postId, postId}));
+        jdbcTemplate.batchUpdate(RECOUNT_LIKE_COUNT, recounts);
+
+        deltas.forEach((postId, delta) -> {
+            if (delta != 0) {
+                trendingPostRanking.likeChangedAfterCommit(postId, delta.intValue());
+            }
+        });
+        if (!deltas.isEmpty() || !unknown.isEmpty()) {
+            feedPageCache.counterChangedAfterCommit();
+        }
+
+        // 커밋되고 나면 (account, post) 의 DB 상태는 요청한 상태와 같다. 바뀐 건수와 상관없이 그대로 비트맵에 반영
+        TransactionUtil.afterCommit(() -> batch.forEach(entry ->
+                postLikeIndex.update(entry.getKey().postId, entry.getKey().accountId, entry.getValue().liked)));
+    }
+
+    private void collect(int[] results, List<LikeKey> keys, int sign, Map<Long, Long> deltas, Set<Long> unknown) {
+        for (int i = 0; i < results.length; i++) {
+            long postId = keys.get(i).postId;
+            if (results[i] == Statement.SUCCESS_NO_INFO) {
+                unknown.add(postId);
+                appliedCounter.increment();
+            } else if (results[i] > 0) {
+                deltas.merge(postId, (long) sign * results[i], Long::sum);
+                appliedCounter.increment();
+            } else {
+                noopCounter.increment(); // 이미 좋아요 했거나, 없는 좋아요를 취소했거나, 글이 없는 경우
+            }
+        }
+    }
+
+    @EqualsAndHashCode
+    @RequiredArgsConstructor
+    private static class LikeKey {
+        private final long accountId;
+        private final long postId;
+
+        @Override
+        public String toString() {
+            return "(account=" + accountId + ", post=" + postId + ")";
+        }
+    }
+
+    @RequiredArgsConstructor
+    private static class PendingLike {
+        private final boolean liked;
+        private final long enqueuedAt;
+    }
+}
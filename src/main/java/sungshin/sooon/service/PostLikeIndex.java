@@ -0,0 +1,132 @@
+package sungshin.sooon.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.roaringbitmap.longlong.Roaring64NavigableMap;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import sungshin.sooon.domain.repository.PostLikeRepository;
+
+import java.util.*;
+
+/*
+    글마다 "좋아요 누른 account id" 를 압축 비트맵(Roaring)으로 들고 있는 인덱스
+        "내가 이 글에 좋아요 했나?" 는 비트맵 contains 한 번으로 메모리에서 답한다. DB 는 비트맵이 없을 때(처음 조회, 캐시에서 밀려남)만 읽는다.
+        Roaring 비트맵은 id 가 몰려 있으면 run 으로, 흩어져 있으면 배열로 알아서 압축하므로 좋아요 수만 건짜리 글도 수 KB 수준이다.
+
+    DB 에 반영된 상태만 담는다. 아직 PostLikeBuffer 에 대기 중인 요청은 호출하는 쪽에서 먼저 확인해야 한다.
+    maxPosts 개까지만 들고 있고, 넘으면 가장 오래 안 쓰인 글부터 버린다(LRU).
+ */
+@Component
+public class PostLikeIndex {
+    private final PostLikeRepository postLikeRepository;
+
+    private final LinkedHashMap<Long, Roaring64NavigableMap> bitmaps; // this 로 동기화
+    private long epoch; // DB 에 좋아요가 반영될 때마다 증가. 로딩 도중 반영이 있었으면 로딩 결과를 캐시하지 않는다.
+
+    private final Counter hitCounter;
+    private final Counter missCounter;
+
+    public PostLikeIndex(PostLikeRepository postLikeRepository,
+                         MeterRegistry meterRegistry,
+                         @Value("${post.like.index.max-posts:10000}") int maxPosts) {
+        this.postLikeRepository = postLikeRepository;
+        this.bitmaps = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Roaring64NavigableMap> eldest) {
+                return size() > maxPosts;
+            }
+        };
+
+        this.hitCounter = meterRegistry.counter("post.like.index.requests", "result", "hit");
+        this.missCounter = meterRegistry.counter("post.like.index.requests", "result", "miss");
+        Gauge.builder("post.like.index.posts", this, PostLikeIndex::size).register(meterRegistry);
+    }
+
+    public boolean contains(long postId, long accountId) {
+        synchronized (this) {
+            Roaring64NavigableMap bitmap = bitmaps.get(postId);
+            if (bitmap != null) {
+                hitCounter.increment();
+                return bitmap.contains(accountId);
+            }
+        }
+        missCounter.increment();
+        return load(postId).contains(accountId);
+    }
+
+    /*
+        postIds 중 accountId 가 좋아요 한 글.
+        비트맵이 메모리에 있는 글은 바로 확인하고, 나머지는 글마다 비트맵을 읽어오는 대신 쿼리 하나로 한꺼번에 확인한다.
+        (피드 한 페이지를 위해 인기 없는 글 비트맵까지 전부 올리면 LRU 에서 정작 인기글이 밀려난다.)
+     */
+    public Set<Long> findLikedPostIds(long accountId, Collection<Long> postIds) {
+        Set<Long> liked = new HashSet<>();
+        List<Long> missing = new ArrayList<>();
+        synchronized (this) {
+            for (Long postId : postIds) {
+                Roaring64NavigableMap bitmap = bitmaps.get(postId);
+                if (bitmap == null) {
+                    missing.add(postId);
+                } else if (bitmap.contains(accountId)) {
+                    liked.add(postId);
+                }
+            }
+        }
+
+        hitCounter.increment(postIds.size() - missing.size());
+        if (!missing.isEmpty()) {
+            missCounter.increment(missing.size());
+            liked.addAll(postLikeRepository.findLikedPostIds(accountId, missing));
+        }
+        return liked;
+    }
+
+    // 비트맵이 메모리에 있는 글만 갱신한다. 없는 글은 다음에 조회할 때 DB 에서 새로 읽는다.
+    public synchronized void update(long postId, long accountId, boolean liked) {
+        epoch++;
+        Roaring64NavigableMap bitmap = bitmaps.get(postId);
+        if (bitmap == null) {
+            return;
+        }
+
+        if (liked) {
+            bitmap.addLong(accountId);
+        } else {
+            bitmap.removeLong(accountId);
+        }
+    }
+
+    // LRU 순서는 건드리지 않는다.
+    public synchronized boolean isLoaded(long postId) {
+        return bitmaps.containsKey(postId);
+    }
+
+    public synchronized void evict(long postId) {
+        epoch++;
+        bitmaps.remove(postId);
+    }
+
+    public synchronized int size() {
+        return bitmaps.size();
+    }
+
+    private Roaring64NavigableMap load(long postId) {
+        long loadedEpoch;
+        synchronized (this) {
+            loadedEpoch = epoch;
+        }
+
+        Roaring64NavigableMap bitmap = new Roaring64NavigableMap();
+        postLikeRepository.findAccountIdsByPostId(postId).forEach(bitmap::addLong);
+        bitmap.runOptimize();
+
+        synchronized (this) {
+            if (loadedEpoch == epoch) {
+                bitmaps.put(postId, bitmap);
+            }
+        }
+        return bitmap;
+    }
+}
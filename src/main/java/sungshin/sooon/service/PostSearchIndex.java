@@ -0,0 +1,454 @@
+package sungshin.sooon.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import sungshin.sooon.domain.repository.PostRepository;
+import sungshin.sooon.domain.repository.PostSearchSource;
+import sungshin.sooon.util.TransactionUtil;
+
+import javax.annotation.PreDestroy;
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.text.Normalizer;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.LongFunction;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/*
+    게시글 검색용 메모리 역색인
+        토큰: 한글은 띄어쓰기/조사 때문에 형태소 분석 없이 단어 단위로 자르면 "학식" 으로 "학식이" 를 찾을 수 없다.
+              그래서 글자/숫자가 이어진 구간마다 두 글자씩 겹쳐 자른다(bigram). "학식메뉴" -> 학식, 식메, 메뉴
+              한 글자짜리 검색어는 그 글자로 시작하는 bigram 전체를 하나의 토큰처럼 취급한다. ("밥" -> 밥을, 밥이 ...)
+        점수: BM25 (k1 = 1.2, b = 0.75). 제목 토큰은 TITLE_WEIGHT 배로 센다.
+        결과는 (점수, id) 내림차순이고, 커서에는 마지막으로 본 (점수, id) 를 담는다.
+
+    갱신
+        PostService 의 작성/수정/삭제가 커밋되면 해당 글만 다시 색인한다.
+        시작할 때 스냅샷 파일이 있으면 읽어오고, 그 뒤에 생긴 글(id 가 더 큰 글), 수정된 글(modifiedAt 이 스냅샷 시각 이후), 삭제된 글만 DB 에서 맞춘다.
+        없거나 오래됐으면 DB 에서 전부 다시 읽는다.
+        DB 는 batchSize 개씩 id 순서로 끊어 읽으므로 글이 많아도 한 번에 메모리에 올리지 않는다.
+        스냅샷은 주기적으로, 그리고 종료할 때 임시 파일에 쓴 뒤 원자적으로 교체한다.
+        (비정상 종료로 마지막 스냅샷 이후의 변경이 빠졌거나 다른 서버에서 수정된 글도 여기서 맞춰진다.
+         modifiedAt 은 각 서버 시계로 찍히므로 서버 간 시계 차이를 생각해 MODIFIED_MARGIN 만큼 더 앞에서부터 읽는다.)
+ */
+@Slf4j
+@Component
+public class PostSearchIndex {
+    private static final int SNAPSHOT_MAGIC = 0x53524348; // "SRCH"
+    private static final int SNAPSHOT_VERSION = 1;
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final int TITLE_WEIGHT = 2;
+    private static final int MAX_QUERY_TERMS = 32;
+    private static final long MODIFIED_MARGIN_MILLIS = TimeUnit.MINUTES.toMillis(1);
+
+    private static final Comparator<Hit> ORDER = Comparator
+            .comparingDouble(Hit::getScore).reversed()
+            .thenComparing(Comparator.comparingLong(Hit::getPostId).reversed());
+
+    private final PostRepository postRepository;
+    private final Path snapshotPath;
+    private final long snapshotMaxAgeMillis;
+    private final int batchSize;
+
+    // 아래 세 필드는 lock 으로 보호한다.
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final TreeMap<String, Map<Long, Integer>> postings = new TreeMap<>(); // 토큰 -> (postId -> 등장 횟수)
+    private final Map<Long, Document> documents = new HashMap<>();
+    private long totalLength;
+
+    // 로딩 중에 작성/수정/삭제된 글. 로더가 읽은 예전 내용으로 덮어쓰지 않도록 건너뛴다.
+    private final Set<Long> touchedDuringLoad = ConcurrentHashMap.newKeySet();
+    private volatile boolean loading;
+    private volatile boolean dirty;
+
+    private final Timer searchTimer;
+
+    public PostSearchIndex(PostRepository postRepository,
+                           MeterRegistry meterRegistry,
+                           @Value("${search.snapshot.path:data/post-search-index.snapshot}") String snapshotPath,
+                           @Value("${search.snapshot.max-age-ms:86400000}") long snapshotMaxAgeMillis,
+                           @Value("${search.load.batch-size:1000}") int batchSize) {
+        this.postRepository = postRepository;
+        this.snapshotPath = Paths.get(snapshotPath);
+        this.snapshotMaxAgeMillis = snapshotMaxAgeMillis;
+        this.batchSize = batchSize;
+
+        this.searchTimer = meterRegistry.timer("post.search.latency");
+        Gauge.builder("post.search.documents", this, PostSearchIndex::size).register(meterRegistry);
+    }
+
+    public List<Hit> search(String query, int limit) {
+        return search(query, null, limit);
+    }
+
+    // (afterScore, afterId) 보다 뒤에 오는 결과 중 최대 limit 개
+    public List<Hit> searchAfter(String query, double afterScore, long afterId, int limit) {
+        return search(query, new Hit(afterId, afterScore), limit);
+    }
+
+    public void indexAfterCommit(long postId, String title, String content) {
+        TransactionUtil.afterCommit(() -> {
+            Document document = Document.of(title, content);
+            write(() -> {
+                markTouched(postId);
+                removeLocked(postId);
+                addLocked(postId, document);
+            });
+        });
+    }
+
+    public void removeAfterCommit(long postId) {
+        TransactionUtil.afterCommit(() -> write(() -> {
+            markTouched(postId);
+            removeLocked(postId);
+        }));
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        loading = true;
+        long start = System.currentTimeMillis();
+        try {
+            long savedAt = readSnapshot();
+            long added;
+            if (savedAt < 0) {
+                added = loadPosts(lastId -> postRepository.findSearchSourcesAfterId(lastId, PageRequest.of(0, batchSize)));
+            } else {
+                long maxIndexedId = removeDeletedPosts();
+                LocalDateTime since = LocalDateTime.ofInstant(Instant.ofEpochMilli(savedAt - MODIFIED_MARGIN_MILLIS), ZoneId.systemDefault());
+                added = loadPosts(lastId -> postRepository.findSearchSourcesModifiedAfter(since, lastId, PageRequest.of(0, batchSize)))
+                        + loadPosts(lastId -> postRepository.findSearchSourcesAfterId(Math.max(lastId, maxIndexedId), PageRequest.of(0, batchSize)));
+            }
+            log.info("검색 색인 로딩 완료: 문서 {}개 (DB 에서 {}개), {}ms", size(), added, System.currentTimeMillis() - start);
+        } finally {
+            loading = false;
+            touchedDuringLoad.clear();
+        }
+    }
+
+    @PreDestroy
+    @Scheduled(fixedDelayString = "${search.snapshot.interval-ms:600000}", initialDelayString = "${search.snapshot.interval-ms:600000}")
+    public void writeSnapshot() {
+        if (loading || !dirty) {
+            return;
+        }
+        dirty = false;
+
+        // 복사하기 전 시각을 적는다. 복사하는 동안 바뀐 글은 다음 로딩 때 수정된 글로 다시 읽힌다.
+        long snapshotAt = System.currentTimeMillis();
+        Map<Long, Document> copy;
+        lock.readLock().lock();
+        try {
+            copy = new HashMap<>(documents); // Document 는 불변이라 얕은 복사로 충분하다.
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        Path tmp = snapshotPath.resolveSibling(snapshotPath.getFileName() + ".tmp");
+        try {
+            if (snapshotPath.getParent() != null) {
+                Files.createDirectories(snapshotPath.getParent());
+            }
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new GZIPOutputStream(Files.newOutputStream(tmp))))) {
+                out.writeInt(SNAPSHOT_MAGIC);
+                out.writeInt(SNAPSHOT_VERSION);
+                out.writeLong(snapshotAt);
+                out.writeInt(copy.size());
+                for (Map.Entry<Long, Document> entry : copy.entrySet()) {
+                    out.writeLong(entry.getKey());
+                    Map<String, Integer> termFreqs = entry.getValue().termFreqs;
+                    out.writeInt(termFreqs.size());
+                    for (Map.Entry<String, Integer> term : termFreqs.entrySet()) {
+                        out.writeUTF(term.getKey());
+                        out.writeInt(term.getValue());
+                    }
+                }
+            }
+            Files.move(tmp, snapshotPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            log.info("검색 색인 스냅샷 저장: 문서 {}개 -> {}", copy.size(), snapshotPath);
+        } catch (IOException e) {
+            dirty = true;
+            log.warn("검색 색인 스냅샷 저장 실패: {}", snapshotPath, e);
+        }
+    }
+
+    private List<Hit> search(String query, Hit after, int limit) {
+        List<String> terms = new ArrayList<>(new LinkedHashSet<>(tokenize(query)));
+        if (terms.isEmpty()) {
+            return List.of();
+        }
+        if (terms.size() > MAX_QUERY_TERMS) {
+            terms = terms.subList(0, MAX_QUERY_TERMS);
+        }
+
+        long start = System.nanoTime();
+        Map<Long, Double> scores = new HashMap<>();
+        lock.readLock().lock();
+        try {
+            int documentCount = documents.size();
+            double averageLength = documentCount == 0 ? 0 : (double) totalLength / documentCount;
+            for (String term : terms) {
+                Map<Long, Integer> termPostings = postingsOf(term);
+                if (termPostings.isEmpty()) {
+                    continue;
+                }
+
+                int df = termPostings.size();
+                double idf = Math.log(1 + (documentCount - df + 0.5) / (df + 0.5));
+                termPostings.forEach((postId, tf) -> {
+                    int length = documents.get(postId).length;
+                    double score = idf * tf * (K1 + 1) / (tf + K1 * (1 - B + B * length / averageLength));
+                    scores.merge(postId, score, Double::sum);
+                });
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        // 커서 뒤쪽 결과 중 상위 limit 개만 힙으로 고른다. (전체 정렬 X)
+        PriorityQueue<Hit> top = new PriorityQueue<>(limit + 1, ORDER.reversed());
+        scores.forEach((postId, score) -> {
+            Hit hit = new Hit(postId, score);
+            if (after != null && ORDER.compare(hit, after) <= 0) {
+                return;
+            }
+            top.add(hit);
+            if (top.size() > limit) {
+                top.poll();
+            }
+        });
+
+        List<Hit> hits = new ArrayList<>(top);
+        hits.sort(ORDER);
+        searchTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return hits;
+    }
+
+    // 한 글자 토큰은 그 글자로 시작하는 bigram 을 모두 합친 것으로 본다.
+    private Map<Long, Integer> postingsOf(String term) {
+        if (term.length() > 1) {
+            return postings.getOrDefault(term, Map.of());
+        }
+
+        Map<Long, Integer> merged = new HashMap<>();
+        postings.subMap(term, true, term + Character.MAX_VALUE, true)
+                .values()
+                .forEach(termPostings -> termPostings.forEach((postId, tf) -> merged.merge(postId, tf, Integer::sum)));
+        return merged;
+    }
+
+    // 스냅샷을 읽어서 색인을 채우고 저장 시각을 돌려준다. 없거나, 깨졌거나, 너무 오래됐으면 -1
+    private long readSnapshot() {
+        if (!Files.exists(snapshotPath)) {
+            return -1;
+        }
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(Files.newInputStream(snapshotPath))))) {
+            if (in.readInt() != SNAPSHOT_MAGIC || in.readInt() != SNAPSHOT_VERSION) {
+                log.warn("검색 색인 스냅샷 형식이 달라 DB 에서 다시 읽습니다: {}", snapshotPath);
+                return -1;
+            }
+            long savedAt = in.readLong();
+            if (System.currentTimeMillis() - savedAt > snapshotMaxAgeMillis) {
+                log.info("검색 색인 스냅샷이 오래되어 DB 에서 다시 읽습니다: {}", snapshotPath);
+                return -1;
+            }
+
+            int documentCount = in.readInt();
+            for (int i = 0; i < documentCount; i++) {
+                long postId = in.readLong();
+                int termCount = in.readInt();
+                Map<String, Integer> termFreqs = new HashMap<>(termCount * 2);
+                for (int j = 0; j < termCount; j++) {
+                    termFreqs.put(in.readUTF(), in.readInt());
+                }
+                Document document = new Document(termFreqs);
+                write(() -> {
+                    if (!touchedDuringLoad.contains(postId)) {
+                        addLocked(postId, document);
+                    }
+                });
+            }
+            return savedAt;
+        } catch (IOException e) {
+            log.warn("검색 색인 스냅샷을 읽지 못해 DB 에서 다시 읽습니다: {}", snapshotPath, e);
+            write(this::clearUntouchedLocked);
+            return -1;
+        }
+    }
+
+    // 스냅샷 이후 삭제된 글을 색인에서 뺀다. id 만 읽는다. 반환값은 DB 의 가장 큰 id 가 아니라 색인에 들어있는 가장 큰 id
+    private long removeDeletedPosts() {
+        Set<Long> existing = new HashSet<>();
+        long lastId = 0;
+        List<Long> ids;
+        do {
+            ids = postRepository.findIdsAfterId(lastId, PageRequest.of(0, batchSize));
+            existing.addAll(ids);
+            if (!ids.isEmpty()) {
+                lastId = ids.get(ids.size() - 1);
+            }
+        } while (ids.size() == batchSize);
+
+        long[] maxIndexedId = {0};
+        write(() -> {
+            documents.keySet().stream()
+                    .filter(postId -> !existing.contains(postId) && !touchedDuringLoad.contains(postId))
+                    .collect(Collectors.toList())
+                    .forEach(this::removeLocked);
+            maxIndexedId[0] = documents.keySet().stream().mapToLong(Long::longValue).max().orElse(0);
+        });
+        return maxIndexedId[0];
+    }
+
+    // 마지막으로 읽은 id 를 넘겨 다음 batch 를 받아오면서 색인한다. 이미 색인된 글은 새 내용으로 바꾼다.
+    private long loadPosts(LongFunction<List<PostSearchSource>> nextBatch) {
+        long lastId = 0;
+        long added = 0;
+        List<PostSearchSource> sources;
+        do {
+            sources = nextBatch.apply(lastId);
+            for (PostSearchSource source : sources) {
+                Document document = Document.of(source.getTitle(), source.getContent()); // 토큰화는 lock 밖에서
+                write(() -> {
+                    if (!touchedDuringLoad.contains(source.getId())) {
+                        removeLocked(source.getId());
+                        addLocked(source.getId(), document);
+                    }
+                });
+                lastId = source.getId();
+            }
+            added += sources.size();
+        } while (sources.size() == batchSize);
+        return added;
+    }
+
+    private void markTouched(long postId) {
+        if (loading) {
+            touchedDuringLoad.add(postId);
+        }
+    }
+
+    private void write(Runnable action) {
+        lock.writeLock().lock();
+        try {
+            action.run();
+            dirty = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void addLocked(long postId, Document document) {
+        documents.put(postId, document);
+        totalLength += document.length;
+        document.termFreqs.forEach((term, tf) -> postings.computeIfAbsent(term, t -> new HashMap<>()).put(postId, tf));
+    }
+
+    private void removeLocked(long postId) {
+        Document document = documents.remove(postId);
+        if (document == null) {
+            return;
+        }
+
+        totalLength -= document.length;
+        document.termFreqs.keySet().forEach(term -> {
+            Map<Long, Integer> termPostings = postings.get(term);
+            termPostings.remove(postId);
+            if (termPostings.isEmpty()) {
+                postings.remove(term);
+            }
+        });
+    }
+
+    // 스냅샷에서 읽다 만 글만 뺀다. 로딩 중에 작성/수정된 글은 이미 최신 내용이고, 다시 읽는 로더는 이 글들을 건너뛰므로 남겨둔다.
+    private void clearUntouchedLocked() {
+        documents.keySet().stream()
+                .filter(postId -> !touchedDuringLoad.contains(postId))
+                .collect(Collectors.toList())
+                .forEach(this::removeLocked);
+    }
+
+    // 글자/숫자가 이어진 구간마다 bigram 으로 자른다. 한 글자짜리 구간은 그 글자 하나가 토큰이 된다.
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+
+        String normalized = Normalizer.normalize(text, Normalizer.Form.NFKC).toLowerCase(Locale.ROOT);
+        int start = -1;
+        for (int i = 0; i <= normalized.length(); i++) {
+            boolean letter = i < normalized.length() && Character.isLetterOrDigit(normalized.charAt(i));
+            if (letter && start < 0) {
+                start = i;
+            } else if (!letter && start >= 0) {
+                if (i - start == 1) {
+                    tokens.add(normalized.substring(start, i));
+                } else {
+                    for (int j = start; j < i - 1; j++) {
+                        tokens.add(normalized.substring(j, j + 2));
+                    }
+                }
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+
+    // 불변. 스냅샷을 쓸 때 lock 밖에서 읽는다.
+    private static class Document {
+        private final Map<String, Integer> termFreqs;
+        private final int length;
+
+        private Document(Map<String, Integer> termFreqs) {
+            this.termFreqs = termFreqs;
+            this.length = termFreqs.values().stream().mapToInt(Integer::intValue).sum();
+        }
+
+        private static Document of(String title, String content) {
+            Map<String, Integer> termFreqs = new HashMap<>();
+            tokenize(title).forEach(term -> termFreqs.merge(term, TITLE_WEIGHT, Integer::sum));
+            tokenize(content).forEach(term -> termFreqs.merge(term, 1, Integer::sum));
+            return new Document(termFreqs);
+        }
+    }
+
+    @Getter
+    @RequiredArgsConstructor
+    public static class Hit {
+        private final long postId;
+        private final double score;
+    }
+}
@@ -4,22 +4,31 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Slice;
-import org.springframework.data.domain.Sort;
 import org.springframework.security.access.AccessDeniedException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import sungshin.sooon.domain.entity.Account;
+import sungshin.sooon.domain.entity.ImageVariant;
 import sungshin.sooon.domain.entity.Post;
-import sungshin.sooon.domain.entity.PostLike;
-import sungshin.sooon.domain.repository.PostLikeRepository;
+import sungshin.sooon.domain.repository.ImageVariantRepository;
+import sungshin.sooon.domain.repository.PostImageSource;
+import sungshin.sooon.domain.repository.PostImagesRepository;
 import sungshin.sooon.domain.repository.PostRepository;
+import sungshin.sooon.domain.repository.PostSummary;
+import sungshin.sooon.dto.PageCursor;
 import sungshin.sooon.dto.PagingPostResponseDto;
+import sungshin.sooon.dto.PostImageResponseDto;
 import sungshin.sooon.dto.PostRequestDto;
 import sungshin.sooon.dto.PostResponseDto;
 import sungshin.sooon.exception.AlreadyExistsException;
 import sungshin.sooon.exception.NotFoundException;
+import sungshin.sooon.util.TransactionUtil;
 
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
@@ -27,18 +36,25 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class PostService {
     private final PostRepository postRepository;
-    private final PostLikeRepository postLikeRepository;
+    private final FeedPageCache feedPageCache;
+    private final TrendingPostRanking trendingPostRanking;
+    private final PostLikeBuffer postLikeBuffer;
+    private final PostLikeIndex postLikeIndex;
+    private final CommentThreadCache commentThreadCache;
+    private final PostSearchIndex postSearchIndex;
+    private final PostImagesRepository postImagesRepository;
+    private final ImageVariantRepository imageVariantRepository;
 
     /*
        바로 (readOnly=true)인데 이 옵션을 추가해주면 트랜잭션 범위는 유지하되, 조회 기능만 남겨두어 조회 속도가 개선되기 때문에 등록, 수정, 삭제 기능이 없는 서비스 메소드에 사용하는 것이 좋다.
    */
     @Transactional(readOnly = true)
     public List<PostResponseDto> findAllByAccount(Account account) {
-        return postRepository
-                .findAllByAccountOrderByCreatedAtDesc(account)
+        return withImages(postRepository
+                .findAllSummaryByAccountId(account.getId())
                 .stream()
                 .map(PostResponseDto::of)
-                .collect(Collectors.toList());
+                .collect(Collectors.toList()));
                 /*
                     스트림은 '데이터의 흐름’입니다. 배열 또는 컬렉션 인스턴스에 함수 여러 개를 조합해서 원하는 결과를 필터링하고 가공된 결과를 얻을 수 있습니다
                      또 하나의 장점은 간단하게 병렬처리(multi-threading)가 가능하다는 점입니다. 하나의 작업을 둘 이상의 작업으로 잘게 나눠서 동시에 진행하는 것을 병렬 처리(parallel processing)라고 합니다. 즉 쓰레드를 이용해 많은 요소들을 빠르게 처리할 수 있습니다.
@@ -49,44 +65,187 @@ public class PostService {
 
     @Transactional(readOnly = true)
     public List<PostResponseDto> findAll() {
-        return postRepository
+        return withImages(postRepository
                 .findAll()
                 .stream()
                 .map(PostResponseDto::of)
-                .collect(Collectors.toList());
+                .collect(Collectors.toList()));
     }
 
     @Transactional(readOnly = true)
     public PagingPostResponseDto findAllOrderBy(Integer page, Integer size, String order) {
-        PageRequest pageRequest;
-        if (order.equals("likeCount")){
-            pageRequest = PageRequest.of(page, size, Sort.by("likeCount").descending());
-            //여기서 sort에 넘겨줘야하는 정보는 도메인 클래스의 Property 혹은 alais 여야 합니다.
-            //@Fomula 수식에 작성하는 모든 것이 ORDER BY 절에 전달되므로 새 열을 정렬 순서로 사용할 수 있습니다.
-            // https://stackoverflow.com/questions/37139985/spring-data-jpa-is-it-possible-to-sort-on-a-calculated-property
+        PageRequest pageRequest = PageRequest.of(page, size);
+        Slice<PostSummary> posts; //slice는 total count쿼리를 날리지 않기때문에 성능이 더 낫다.
+
+        // 정렬 조건은 쿼리에 (정렬키, id) 로 고정되어 있다. id를 보조 정렬키로 두어야 같은 값끼리의 순서가 고정되어 커서 페이징과 결과가 일치한다.
+        if (order.equals("trending")) {
+            return findTrending(page * size, size, page);
+        } else if (order.equals("likeCount")){
+            posts = postRepository.findFeedOrderByLikeCount(pageRequest);
         } else if (order.equals("createdAt")){
-            pageRequest = PageRequest.of(page, size, Sort.by("createdAt").descending());
+            posts = postRepository.findFeedOrderByCreatedAt(pageRequest);
+        } else {
+            throw new NotFoundException("존재하지 않는 정렬 값입니다.");
+        }
+
+        return toPagingPostResponseDto(posts, order, posts.getNumber());
+    }
+
+    /*
+        키셋(커서) 페이징
+            offset 페이징은 page 500 을 조회하면 DB가 500 * size 개의 행을 읽고 버린다. 또 스크롤 도중 새 글이 올라오면 페이지 경계가 밀려 같은 글이 두 번 보인다.
+            커서 페이징은 마지막으로 본 글의 (정렬키, id) 를 기준으로 "그 다음" 행만 조회하므로 스크롤 깊이와 상관없이 조회 비용이 일정하다.
+     */
+    @Transactional(readOnly = true)
+    public PagingPostResponseDto findAllByCursor(String cursor, Integer size, String order) {
+        PageRequest pageRequest = PageRequest.of(0, size);
+        PageCursor pageCursor = cursor == null ? null : PageCursor.decode(cursor);
+
+        Slice<PostSummary> posts;
+        if (order.equals("trending")) { // 인기글은 (점수, id) 가 계속 변하므로 커서에 순위 offset 을 담는다.
+            return findTrending(pageCursor == null ? 0 : (int) pageCursor.getKeyAsLong(), size, null);
+        } else if (order.equals("likeCount")) {
+            posts = pageCursor == null
+                    ? postRepository.findFeedOrderByLikeCount(pageRequest)
+                    : postRepository.findFeedAfterLikeCount(pageCursor.getKeyAsLong(), pageCursor.getId(), pageRequest);
+        } else if (order.equals("createdAt")) {
+            posts = pageCursor == null
+                    ? postRepository.findFeedOrderByCreatedAt(pageRequest)
+                    : postRepository.findFeedAfterCreatedAt(pageCursor.getKeyAsDateTime(), pageCursor.getId(), pageRequest);
         } else {
             throw new NotFoundException("존재하지 않는 정렬 값입니다.");
         }
 
-        Slice<Post> posts = postRepository.findAll(pageRequest); //slice는 total count쿼리를 날리지 않기때문에 성능이 더 낫다. 그러나 findAll의 Return값은 Page
+        return toPagingPostResponseDto(posts, order, null);
+    }
+
+    // 순위는 메모리의 상위 K 에서 가져오고, DB 에서는 해당 id 들의 내용만 한 번에 읽는다.
+    private PagingPostResponseDto findTrending(int offset, int size, Integer currentPage) {
+        List<Long> postIds = trendingPostRanking.findPostIds(offset, size + 1);
+        boolean hasNext = postIds.size() > size;
+        if (hasNext) {
+            postIds = postIds.subList(0, size);
+        }
+
+        if (postIds.isEmpty()) {
+            return PagingPostResponseDto.builder()
+                    .currentPage(currentPage)
+                    .currentSize(0)
+                    .hasNextPage(false)
+                    .posts(List.of()).build();
+        }
+
+        List<PostResponseDto> postResponseDto = findAllInOrder(postIds);
+
+        String nextCursor = hasNext
+                ? PageCursor.of(offset + size, postIds.get(postIds.size() - 1)).encode()
+                : null;
+
+        return PagingPostResponseDto.builder()
+                .currentPage(currentPage)
+                .currentSize(postResponseDto.size())
+                .hasNextPage(hasNext)
+                .posts(postResponseDto)
+                .nextCursor(nextCursor).build();
+    }
+
+    // postIds 순서 그대로 글 내용을 한 번의 쿼리로 읽는다. 그 사이 삭제된 글은 제외
+    private List<PostResponseDto> findAllInOrder(List<Long> postIds) {
+        Map<Long, PostSummary> summaries = postRepository.findAllSummaryByIdIn(postIds)
+                .stream()
+                .collect(Collectors.toMap(PostSummary::getId, Function.identity()));
+
+        return withImages(postIds.stream()
+                .filter(summaries::containsKey)
+                .map(id -> PostResponseDto.of(summaries.get(id)))
+                .collect(Collectors.toList()));
+    }
+
+    /*
+        검색: 순위는 메모리 색인(PostSearchIndex)에서 매기고, DB 에서는 결과 id 들의 내용만 한 번에 읽는다.
+        커서에는 마지막 결과의 (점수, id) 를 담는다.
+     */
+    public PagingPostResponseDto search(String query, String cursor, int size) {
+        PageCursor pageCursor = cursor == null ? null : PageCursor.decode(cursor);
+        List<PostSearchIndex.Hit> hits = pageCursor == null
+                ? postSearchIndex.search(query, size + 1)
+                : postSearchIndex.searchAfter(query, pageCursor.getKeyAsDouble(), pageCursor.getId(), size + 1);
+
+        boolean hasNext = hits.size() > size;
+        if (hasNext) {
+            hits = hits.subList(0, size);
+        }
+
+        List<PostResponseDto> posts = hits.isEmpty()
+                ? List.of()
+                : findAllInOrder(hits.stream().map(PostSearchIndex.Hit::getPostId).collect(Collectors.toList()));
+
+        String nextCursor = null;
+        if (hasNext) {
+            PostSearchIndex.Hit last = hits.get(hits.size() - 1);
+            nextCursor = PageCursor.of(last.getScore(), last.getPostId()).encode();
+        }
+
+        return PagingPostResponseDto.builder()
+                .currentSize(posts.size())
+                .hasNextPage(hasNext)
+                .posts(posts)
+                .nextCursor(nextCursor).build();
+    }
 
-        List<PostResponseDto> postResponseDto = posts.stream()
+    private PagingPostResponseDto toPagingPostResponseDto(Slice<PostSummary> posts, String order, Integer currentPage) {
+        List<PostResponseDto> postResponseDto = withImages(posts.stream()
                 .map(PostResponseDto::of)
-                .collect(Collectors.toList());
+                .collect(Collectors.toList()));
+
+        String nextCursor = null;
+        if (posts.hasNext() && !postResponseDto.isEmpty()) {
+            PostResponseDto last = postResponseDto.get(postResponseDto.size() - 1);
+            nextCursor = order.equals("likeCount")
+                    ? PageCursor.of(last.getLikesCount(), last.getId()).encode()
+                    : PageCursor.of(last.getCreatedAt(), last.getId()).encode();
+        }
 
         return PagingPostResponseDto.builder()
-                .currentPage(posts.getNumber())
+                .currentPage(currentPage)
                 .currentSize(posts.getNumberOfElements())
                 .hasNextPage(posts.hasNext())
-                .posts(postResponseDto).build();
+                .posts(postResponseDto)
+                .nextCursor(nextCursor).build();
     }
 
     @Transactional(readOnly = true)
     public PostResponseDto findById(Long id) {
         Post post = findByIdOrThrowNotFoundException(id);
-        return PostResponseDto.of(post);
+        return withImages(List.of(PostResponseDto.of(post))).get(0);
+    }
+
+    /*
+        글 이미지와 ImageVariantPipeline 이 만든 폭별 축소본을 붙인다. 글 수와 상관없이 이미지 한 번, 축소본 한 번 읽는다.
+        피드 페이지는 이 결과 그대로 FeedPageCache 에 들어간다. 캐시된 뒤에 축소본이 만들어지면 ImageVariantPipeline 이 캐시를 비운다.
+     */
+    private List<PostResponseDto> withImages(List<PostResponseDto> posts) {
+        if (posts.isEmpty()) {
+            return posts;
+        }
+        List<PostImageSource> images = postImagesRepository.findAllByPostIdIn(posts.stream().map(PostResponseDto::getId).collect(Collectors.toList()));
+        if (images.isEmpty()) {
+            return posts;
+        }
+
+        Map<String, Map<Integer, String>> variants = imageVariantRepository
+                .findByOriginalUrlIn(images.stream().map(PostImageSource::getImageUrl).collect(Collectors.toSet()))
+                .stream()
+                .collect(Collectors.groupingBy(ImageVariant::getOriginalUrl,
+                        Collectors.toMap(ImageVariant::getWidth, ImageVariant::getUrl, (a, b) -> a, TreeMap::new)));
+        Map<Long, List<PostImageResponseDto>> imagesByPost = images.stream()
+                .collect(Collectors.groupingBy(PostImageSource::getPostId, Collectors.mapping(image -> PostImageResponseDto.builder()
+                        .url(image.getImageUrl())
+                        .variants(variants.getOrDefault(image.getImageUrl(), Map.of()))
+                        .build(), Collectors.toList())));
+
+        posts.forEach(post -> post.setImages(imagesByPost.get(post.getId())));
+        return posts;
     }
 
 
@@ -94,7 +253,11 @@ public class PostService {
     public PostResponseDto save(Account account, PostRequestDto postRequestDto) {
         Post post = postRequestDto.toPost();
         post.setAccount(account);
-        return PostResponseDto.of(postRepository.save(post));
+        postRepository.save(post);
+        feedPageCache.invalidateAfterCommit();
+        trendingPostRanking.postCreatedAfterCommit(post.getId(), post.getCreatedAt());
+        postSearchIndex.indexAfterCommit(post.getId(), post.getTitle(), post.getContent());
+        return PostResponseDto.of(post);
     }
 
     @Transactional
@@ -102,11 +265,16 @@ public class PostService {
         Post post = findByIdOrThrowNotFoundException(id);
 
         //현재사용자와 게시글을 작성한 유저의 아이디를 비교해서 권한이있는지 확인해야함. 인터셉터로 해야하나?? 서비스단 말고 더 좋은 위치는 없나?
-        if (post.getAccount().getId() != account.getId()) {
+        if (!post.getAccount().getId().equals(account.getId())) { // Long 끼리 != 는 참조 비교
             throw new AccessDeniedException("삭제 권한이 없습니다.");
         }
 
         postRepository.delete(post);
+        feedPageCache.invalidateAfterCommit();
+        trendingPostRanking.postDeletedAfterCommit(id);
+        TransactionUtil.afterCommit(() -> postLikeIndex.evict(id));
+        commentThreadCache.evictAfterCommit(id);
+        postSearchIndex.removeAfterCommit(id);
     }
 
     public Post findByIdOrThrowNotFoundException(Long id) {
@@ -121,54 +289,98 @@ public class PostService {
         Post post = findByIdOrThrowNotFoundException(id);
 
         //현재사용자와 게시글을 작성한 유저의 아이디를 비교해서 권한이있는지 확인해야함. 인터셉터로 해야하나?? 서비스단 말고 더 좋은 위치는 없나?
-        if (post.getAccount().getId() != account.getId()) {
+        if (!post.getAccount().getId().equals(account.getId())) { // Long 끼리 != 는 참조 비교
             throw new AccessDeniedException("수정 권한이 없습니다.");
         }
 
         postRequestDto.apply(post);
+        feedPageCache.invalidateAfterCommit();
+        postSearchIndex.indexAfterCommit(post.getId(), post.getTitle(), post.getContent());
         return PostResponseDto.of(post);
     }
 
-    @Transactional
+    /*
+        좋아요/취소는 PostLikeBuffer 에 기록만 하고 바로 반환한다. DB 반영(post_like insert/delete, like_count 증감)은 버퍼가 모아서 배치로 처리한다.
+        이미 좋아요 했는지는 PostLikeIndex 비트맵에서 확인하므로 보통은 쿼리가 하나도 실행되지 않는다.
+     */
     public void saveLike(Account account, long postId) {
-        Post post = findByIdOrThrowNotFoundException(postId);
-
-        if (postLikeRepository.findByAccountAndPost(account, post) != null) {
+        requireExistingPost(postId);
+        if (isLiked(account.getId(), postId)) {
             throw new AlreadyExistsException("이미 좋아요한 게시글입니다.");
         }
 
-        PostLike postLike = PostLike.builder().post(post).account(account).build();
-        postLikeRepository.save(postLike);
+        postLikeBuffer.like(account.getId(), postId);
     }
 
-    @Transactional
     public void deleteLike(Account account, long postId, long userId) {
         if (account.getId() != userId) {
             throw new AccessDeniedException("삭제 권한이 없습니다.");
         }
 
-        Post post = findByIdOrThrowNotFoundException(postId);
-        PostLike postLike = postLikeRepository.findByAccountAndPost(account, post);
-
-        if (postLike == null) {
+        requireExistingPost(postId);
+        if (!isLiked(account.getId(), postId)) {
             throw new NotFoundException("좋아요한 기록이 없습니다.");
         }
 
-        postLikeRepository.delete(postLike);
+        postLikeBuffer.unlike(account.getId(), postId);
     }
 
-    @Transactional
     public void findLikeByUserId(Account account, long postId, long userId) {
         if (account.getId() != userId) {
             throw new AccessDeniedException("조회 권한이 없습니다.");
         }
 
-        Post post = findByIdOrThrowNotFoundException(postId);
+        requireExistingPost(postId);
+        if (!isLiked(account.getId(), postId)) {
+            throw new NotFoundException("좋아요한 기록이 없습니다.");
+        }
+    }
 
-        PostLike postLike = postLikeRepository.findByAccountAndPost(account, post);
+    // 피드 한 페이지 글들 중 로그인한 사용자가 좋아요 한 글. 글마다 따로 확인하지 않고 한 번에 모아서 확인한다.
+    public Set<Long> findLikedPostIds(Account account, List<Long> postIds) {
+        if (postIds.isEmpty()) {
+            return Set.of();
+        }
 
-        if (postLike == null) {
-            throw new NotFoundException("좋아요한 기록이 없습니다.");
+        Set<Long> liked = postLikeIndex.findLikedPostIds(account.getId(), postIds);
+        for (Long postId : postIds) {
+            Boolean pendingState = postLikeBuffer.findPendingState(account.getId(), postId);
+            if (pendingState != null) {
+                if (pendingState) {
+                    liked.add(postId);
+                } else {
+                    liked.remove(postId);
+                }
+            }
+        }
+        return liked;
+    }
+
+    public PagingPostResponseDto markLikedByMe(Account account, PagingPostResponseDto page) {
+        List<Long> postIds = page.getPosts().stream()
+                .map(PostResponseDto::getId)
+                .collect(Collectors.toList());
+        Set<Long> liked = findLikedPostIds(account, postIds);
+        page.getPosts().forEach(post -> post.setLikedByMe(liked.contains(post.getId())));
+        return page;
+    }
+
+    /*
+        비트맵이 올라와 있는 글은 존재하는 글이다. (글을 지우면 커밋 후 evict 되고, 아래 확인을 통과한 글만 비트맵을 읽어 온다)
+        그래서 인기글처럼 비트맵이 있는 글은 쿼리 없이 통과하고, 처음 보는 글만 PK 조회 한 번으로 확인한다.
+     */
+    private void requireExistingPost(long postId) {
+        if (!postLikeIndex.isLoaded(postId) && !postRepository.existsById(postId)) {
+            throw new NotFoundException("게시글이 존재하지 않습니다.");
+        }
+    }
+
+    // 아직 버퍼에만 있고 DB 에 반영되지 않은 좋아요/취소가 있으면 그 상태가 최신이고, 없으면 비트맵(없으면 DB)에서 확인한다.
+    private boolean isLiked(long accountId, long postId) {
+        Boolean pendingState = postLikeBuffer.findPendingState(accountId, postId);
+        if (pendingState != null) {
+            return pendingState;
         }
+        return postLikeIndex.contains(postId, accountId);
     }
 }
\ No newline at end of file
@@ -0,0 +1,209 @@
+package sungshin.sooon.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import sungshin.sooon.config.VerifiedTokenCache;
+import sungshin.sooon.domain.entity.RefreshToken;
+import sungshin.sooon.domain.repository.RefreshTokenRepository;
+
+import javax.annotation.PreDestroy;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/*
+    refresh token 저장소 (메모리 + 쓰기 지연)
+        계정(email)마다 마지막으로 발급한 refresh token 의 digest 와 만료 시각 하나만 유효하다.
+        로그인/갱신 요청은 메모리 맵만 보고 바꾼 뒤 바로 응답하고, 바뀐 계정만 flushInterval 마다 모아서 refresh_token 테이블에 반영한다.
+        메모리에 없는 계정(기동 후 처음 보는 계정)만 DB 에서 한 번 읽어 온다.
+
+    회전(rotation)
+        갱신하면 새 refresh token 이 발급되고 이전 것은 바로 무효가 된다.
+        이미 회전된(= 지금 저장된 것과 다른) 토큰으로 갱신하려고 하면 탈취된 토큰이 재사용된 것으로 보고 그 계정의 refresh token 을 폐기한다.
+        (정상 사용자도 다시 로그인해야 하지만, 공격자가 가진 토큰도 같이 무효가 된다)
+
+    폐기는 DB 에서 지울 때까지 메모리에 폐기 표시(digest = null)로 남겨 둔다. 그 사이 DB 를 다시 읽어 지워진 토큰이 살아나는 일이 없도록.
+    서버가 비정상 종료되면 마지막 flushInterval 동안의 회전이 유실될 수 있고, 그 사용자는 갱신이 실패해 다시 로그인하게 된다.
+    인스턴스가 여러 대면 같은 계정의 갱신이 서로 다른 인스턴스로 가지 않도록(sticky) 해야 한다.
+ */
+@Slf4j
+@Component
+public class RefreshTokenStore {
+    private static final String DELETE_TOKEN = "delete from refresh_token where email = ?";
+    private static final String INSERT_TOKEN = "insert into refresh_token (email, token_value, expires_at) values (?, ?, ?)";
+    private static final String DELETE_EXPIRED = "delete from refresh_token where expires_at is null or expires_at < ?";
+
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+
+    private final Map<String, Entry> tokens = new ConcurrentHashMap<>(); // email -> 지금 유효한 토큰 (또는 폐기 표시)
+    private final Map<String, Entry> dirty = new ConcurrentHashMap<>();  // email -> 아직 DB 에 쓰지 않은 마지막 상태
+
+    private final Counter rotatedCounter;
+    private final Counter reusedCounter;
+    private final Counter rejectedCounter;
+
+    public RefreshTokenStore(RefreshTokenRepository refreshTokenRepository,
+                             JdbcTemplate jdbcTemplate,
+                             PlatformTransactionManager transactionManager,
+                             MeterRegistry meterRegistry,
+                             @Value("${auth.refresh.batch-size:500}") int batchSize) {
+        this.refreshTokenRepository = refreshTokenRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+
+        this.rotatedCounter = meterRegistry.counter("refresh.token.requests", "result", "rotated");
+        this.reusedCounter = meterRegistry.counter("refresh.token.requests", "result", "reused");
+        this.rejectedCounter = meterRegistry.counter("refresh.token.requests", "result", "rejected");
+        Gauge.builder("refresh.token.store.size", tokens, Map::size).register(meterRegistry);
+        Gauge.builder("refresh.token.store.pending", dirty, Map::size).register(meterRegistry);
+    }
+
+    // 로그인/가입으로 새로 발급. 이전 토큰은 무효가 된다.
+    public void save(String email, String refreshToken, long expiresAt) {
+        Entry entry = new Entry(VerifiedTokenCache.digest(refreshToken), expiresAt);
+        tokens.compute(email, (key, current) -> {
+            dirty.put(key, entry);
+            return entry;
+        });
+    }
+
+    /*
+        presented 가 지금 유효한 토큰이면 next 로 바꾸고 true
+        아니면 false. presented 가 이미 회전된 토큰이면 그 계정의 토큰을 폐기한다.
+     */
+    public boolean rotate(String email, String presented, String next, long nextExpiresAt) {
+        String presentedDigest = VerifiedTokenCache.digest(presented);
+        Entry nextEntry = new Entry(VerifiedTokenCache.digest(next), nextExpiresAt);
+        long now = System.currentTimeMillis();
+
+        if (!tokens.containsKey(email)) {
+            tokens.putIfAbsent(email, load(email));
+        }
+
+        boolean[] rotated = {false};
+        tokens.compute(email, (key, current) -> {
+            if (current == null || !current.isActive(now)) {
+                return current;
+            }
+            if (!current.digest.equals(presentedDigest)) {
+                reusedCounter.increment();
+                log.warn("이미 회전된 refresh token 재사용, 토큰 폐기: {}", key);
+                dirty.put(key, Entry.REVOKED);
+                return Entry.REVOKED;
+            }
+            rotated[0] = true;
+            dirty.put(key, nextEntry);
+            return nextEntry;
+        });
+
+        (rotated[0] ? rotatedCounter : rejectedCounter).increment();
+        return rotated[0];
+    }
+
+    public void revoke(String email) {
+        tokens.compute(email, (key, current) -> {
+            dirty.put(key, Entry.REVOKED);
+            return Entry.REVOKED;
+        });
+    }
+
+    private Entry load(String email) {
+        return refreshTokenRepository.findById(email)
+                .filter(refreshToken -> refreshToken.getExpiresAt() != null)
+                .map(refreshToken -> new Entry(refreshToken.getTokenValue(), refreshToken.getExpiresAt()))
+                .orElse(Entry.NONE);
+    }
+
+    @Scheduled(fixedDelayString = "${auth.refresh.flush-interval-ms:1000}")
+    public synchronized void flush() {
+        while (!dirty.isEmpty()) {
+            List<Map.Entry<String, Entry>> batch = drain();
+            if (batch.isEmpty()) {
+                return;
+            }
+            try {
+                transactionTemplate.executeWithoutResult(status -> write(batch));
+            } catch (RuntimeException e) {
+                // 다음 flush 에서 다시 시도. 그 사이 더 새로운 상태가 들어왔으면 그것을 쓴다.
+                log.warn("refresh token 반영 실패, 다음에 다시 시도합니다. size={}", batch.size(), e);
+                batch.forEach(entry -> dirty.putIfAbsent(entry.getKey(), entry.getValue()));
+                return;
+            }
+            // DB 에서도 지워졌으므로 폐기 표시는 내린다. (그 사이 새로 로그인했으면 그대로 둔다)
+            batch.stream()
+                    .filter(entry -> entry.getValue() == Entry.REVOKED)
+                    .forEach(entry -> tokens.remove(entry.getKey(), Entry.REVOKED));
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        log.info("종료 전 refresh token 반영: {}건", dirty.size());
+        flush();
+    }
+
+    // 만료된 토큰은 메모리와 DB 에서 지운다. 예전 형식(expires_at 없음) 행도 같이 지운다.
+    @Scheduled(fixedDelayString = "${auth.refresh.sweep-interval-ms:3600000}")
+    public void sweep() {
+        long now = System.currentTimeMillis();
+        tokens.entrySet().removeIf(entry -> entry.getValue().isExpired(now) && !dirty.containsKey(entry.getKey()));
+        int deleted = jdbcTemplate.update(DELETE_EXPIRED, now);
+        log.info("만료된 refresh token 정리: DB {}건, 메모리 {}건 남음", deleted, tokens.size());
+    }
+
+    private List<Map.Entry<String, Entry>> drain() {
+        List<Map.Entry<String, Entry>> batch = new ArrayList<>(Math.min(batchSize, dirty.size()));
+        Iterator<String> keys = dirty.keySet().iterator();
+        while (keys.hasNext() && batch.size() < batchSize) {
+            String key = keys.next();
+            Entry entry = dirty.remove(key);
+            if (entry != null) {
+                batch.add(new AbstractMap.SimpleImmutableEntry<>(key, entry));
+            }
+        }
+        return batch;
+    }
+
+    // upsert 문법이 DB 마다 달라서 지우고 다시 넣는다. 같은 email 은 배치 안에 한 번만 있다.
+    private void write(List<Map.Entry<String, Entry>> batch) {
+        List<Object[]> deletes = new ArrayList<>(batch.size());
+        List<Object[]> inserts = new ArrayList<>(batch.size());
+        for (Map.Entry<String, Entry> entry : batch) {
+            deletes.add(new Object[]{entry.getKey()});
+            if (entry.getValue().digest != null) {
+                inserts.add(new Object[]{entry.getKey(), entry.getValue().digest, entry.getValue().expiresAt});
+            }
+        }
+        jdbcTemplate.batchUpdate(DELETE_TOKEN, deletes);
+        jdbcTemplate.batchUpdate(INSERT_TOKEN, inserts);
+    }
+
+    @RequiredArgsConstructor
+    private static class Entry {
+        static final Entry REVOKED = new Entry(null, 0); // 폐기했지만 아직 DB 에서 지우지 않음
+        static final Entry NONE = new Entry(null, 0);    // DB 에도 없음
+
+        private final String digest;
+        private final long expiresAt;
+
+        boolean isActive(long now) {
+            return digest != null && !isExpired(now);
+        }
+
+        boolean isExpired(long now) {
+            return now >= expiresAt;
+        }
+    }
+}
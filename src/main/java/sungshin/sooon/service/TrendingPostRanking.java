@@ -0,0 +1,235 @@
+package sungshin.sooon.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import sungshin.sooon.domain.repository.PostRepository;
+import sungshin.sooon.domain.repository.TrendingCandidate;
+import sungshin.sooon.util.TransactionUtil;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.function.Consumer;
+
+/*
+    인기글(trending) 순위
+        likeCount 전체 누적 순으로 정렬하면 오래된 글이 영원히 상단에 남는다. 그래서 좋아요, 댓글 수에 시간 감쇠를 준 점수를 쓴다.
+            score = (좋아요 + 2 * 댓글 + 1) / (경과 시간(h) + 2) ^ gravity      (Hacker News 랭킹 공식과 같은 형태)
+
+    상위 K 개만 메모리에 유지한다.
+        TreeSet(점수순) + HashMap(postId -> Entry) 조합이라 좋아요/댓글 이벤트 한 건 반영이 O(log K) 이다.
+        읽을 때는 이미 정렬된 TreeSet 을 앞에서부터 순회만 하면 되므로 post 테이블을 정렬할 일이 없다.
+        시간이 지나면 점수가 계속 떨어지므로 rescoreInterval 마다 최근 windowDays 일 글을 다시 읽어 전체 점수를 새로 계산한다.
+        상위 K 밖의 글이 갑자기 좋아요를 많이 받으면 다음 재계산 때 순위에 들어온다.
+
+    재계산 후보
+        windowDays 안의 글 중 최신 candidateLimit 개와 반응 수(좋아요 + 2 * 댓글) 상위 candidateLimit 개를 합친다.
+        최신 글만 보면 글이 많은 주에는 며칠 지났지만 점수가 높은 글이 후보에서 빠진다.
+        두 목록 어디에도 없는 글은 최신 목록의 가장 오래된 글보다 오래됐고 반응 목록의 꼴찌보다 반응이 적으므로,
+        점수가 그 두 값으로 만든 상한보다 낮다. 그래도 상위 K 에 들 수 있을 만큼 글이 많으면 candidateLimit 을 늘린다.
+
+    기준 시각
+        모든 점수는 마지막 재계산 시각(scoredAt) 기준으로 계산한다. 이벤트마다 현재 시각으로 다시 계산하면
+        좋아요를 받은 글만 더 늙은 것으로 계산되어, 좋아요를 받고도 그대로인 글들보다 순위가 내려갈 수 있다.
+        재계산 뒤에 쓴 글은 경과 시간 0 으로 친다.
+
+    재계산 중에 들어온 이벤트
+        후보를 조회한 뒤 새 순위로 교체하기 전까지 들어온 이벤트는 예전 순위에만 반영되고 사라진다.
+        그래서 재계산하는 동안의 이벤트를 모아 두었다가 교체 직전에 새 순위에 다시 적용한다.
+        조회 시작과 거의 동시에 커밋된 이벤트는 조회 결과와 재적용에 모두 들어가 한 번 더 셀 수 있다. (다음 재계산 때 바로잡힌다)
+ */
+@Slf4j
+@Component
+public class TrendingPostRanking {
+    private final PostRepository postRepository;
+    private final FeedPageCache feedPageCache;
+    private final int capacity;
+    private final double gravity;
+    private final int windowDays;
+    private final int candidateLimit;
+
+    private final Comparator<Entry> byScore = Comparator
+            .comparingDouble((Entry entry) -> entry.score).reversed()
+            .thenComparing(Comparator.comparingLong((Entry entry) -> entry.postId).reversed());
+
+    // 아래 두 필드는 항상 this 로 동기화해서 접근한다.
+    private Ranking ranking = new Ranking(System.currentTimeMillis());
+    private List<Consumer<Ranking>> eventsDuringRescore; // 재계산 중이 아니면 null
+
+    public TrendingPostRanking(PostRepository postRepository,
+                               FeedPageCache feedPageCache,
+                               @Value("${trending.capacity:500}") int capacity,
+                               @Value("${trending.gravity:1.5}") double gravity,
+                               @Value("${trending.window-days:7}") int windowDays,
+                               @Value("${trending.candidate-limit:5000}") int candidateLimit) {
+        this.postRepository = postRepository;
+        this.feedPageCache = feedPageCache;
+        this.capacity = capacity;
+        this.gravity = gravity;
+        this.windowDays = windowDays;
+        this.candidateLimit = candidateLimit;
+    }
+
+    // offset 부터 limit 개의 postId 를 순위대로 반환
+    public synchronized List<Long> findPostIds(int offset, int limit) {
+        List<Long> postIds = new ArrayList<>(Math.min(limit, ranking.entries.size()));
+        Iterator<Entry> iterator = ranking.sorted.iterator();
+        for (int i = 0; iterator.hasNext() && postIds.size() < limit; i++) {
+            Entry entry = iterator.next();
+            if (i >= offset) {
+                postIds.add(entry.postId);
+            }
+        }
+        return postIds;
+    }
+
+    public void likeChangedAfterCommit(long postId, int delta) {
+        TransactionUtil.afterCommit(() -> apply(ranking -> ranking.update(postId, delta, 0)));
+    }
+
+    public void commentChangedAfterCommit(long postId, int delta) {
+        TransactionUtil.afterCommit(() -> apply(ranking -> ranking.update(postId, 0, delta)));
+    }
+
+    public void postCreatedAfterCommit(long postId, LocalDateTime createdAt) {
+        long createdAtMillis = toEpochMillis(createdAt);
+        TransactionUtil.afterCommit(() -> apply(ranking -> ranking.created(postId, createdAtMillis)));
+    }
+
+    public void postDeletedAfterCommit(long postId) {
+        TransactionUtil.afterCommit(() -> apply(ranking -> ranking.remove(postId)));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${trending.rescore-interval-ms:300000}", initialDelayString = "${trending.rescore-interval-ms:300000}")
+    public void rescore() {
+        synchronized (this) {
+            eventsDuringRescore = new ArrayList<>();
+        }
+
+        Ranking newRanking;
+        int candidateCount;
+        try {
+            long now = System.currentTimeMillis();
+            LocalDateTime since = LocalDateTime.now().minusDays(windowDays);
+            List<TrendingCandidate> recent = postRepository.findTrendingCandidates(since, PageRequest.of(0, candidateLimit));
+            List<TrendingCandidate> engaged = postRepository.findTrendingCandidatesByEngagement(since, PageRequest.of(0, candidateLimit));
+
+            // 락 밖에서 새 순위를 만든 다음 한 번에 교체한다.
+            newRanking = new Ranking(now);
+            Set<Long> seen = new HashSet<>();
+            for (List<TrendingCandidate> candidates : List.of(recent, engaged)) {
+                for (TrendingCandidate candidate : candidates) {
+                    if (seen.add(candidate.getId())) {
+                        newRanking.add(new Entry(candidate.getId(), candidate.getLikeCount(), candidate.getCommentCount(), toEpochMillis(candidate.getCreatedAt())));
+                    }
+                }
+            }
+            candidateCount = seen.size();
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                eventsDuringRescore = null;
+            }
+            throw e;
+        }
+
+        synchronized (this) {
+            eventsDuringRescore.forEach(event -> event.accept(newRanking));
+            eventsDuringRescore = null;
+            ranking = newRanking;
+        }
+        feedPageCache.invalidate();
+        log.debug("trending 재계산: 후보 {}건, 상위 {}건 유지", candidateCount, newRanking.entries.size());
+    }
+
+    private synchronized void apply(Consumer<Ranking> event) {
+        event.accept(ranking);
+        if (eventsDuringRescore != null) {
+            eventsDuringRescore.add(event);
+        }
+    }
+
+    private static long toEpochMillis(LocalDateTime dateTime) {
+        return dateTime == null ? System.currentTimeMillis() : dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    // 한 번의 재계산으로 만든 순위. 밖에서 this 로 동기화한 상태에서만 바꾼다. (재계산 중인 새 순위는 아직 공유되지 않음)
+    private class Ranking {
+        private final long scoredAt;
+        private final TreeSet<Entry> sorted = new TreeSet<>(byScore);
+        private final Map<Long, Entry> entries = new HashMap<>();
+
+        private Ranking(long scoredAt) {
+            this.scoredAt = scoredAt;
+        }
+
+        private void update(long postId, int likeDelta, int commentDelta) {
+            Entry entry = entries.get(postId);
+            if (entry == null) {
+                return; // 상위 K 밖의 글은 다음 재계산 때 반영
+            }
+
+            sorted.remove(entry); // TreeSet 안에 있는 동안 정렬 키(score)를 바꾸면 안 된다.
+            entry.likeCount += likeDelta;
+            entry.commentCount += commentDelta;
+            entry.score = score(entry);
+            sorted.add(entry);
+        }
+
+        private void add(Entry entry) {
+            entry.score = score(entry);
+            if (sorted.size() >= capacity && !entries.containsKey(entry.postId) && byScore.compare(entry, sorted.last()) > 0) {
+                return; // 꼴찌보다 점수가 낮으면 들어올 수 없다.
+            }
+
+            Entry previous = entries.put(entry.postId, entry);
+            if (previous != null) {
+                sorted.remove(previous);
+            }
+            sorted.add(entry);
+
+            if (sorted.size() > capacity) {
+                entries.remove(sorted.pollLast().postId);
+            }
+        }
+
+        // 새 글. 재계산 중에 쓴 글은 후보 조회에 이미 (좋아요, 댓글 수와 함께) 들어 있을 수 있으므로 있으면 그대로 둔다.
+        private void created(long postId, long createdAt) {
+            if (!entries.containsKey(postId)) {
+                add(new Entry(postId, 0, 0, createdAt));
+            }
+        }
+
+        private void remove(long postId) {
+            Entry entry = entries.remove(postId);
+            if (entry != null) {
+                sorted.remove(entry);
+            }
+        }
+
+        private double score(Entry entry) {
+            double ageHours = Math.max(0, scoredAt - entry.createdAt) / 3_600_000.0;
+            return (entry.likeCount + 2.0 * entry.commentCount + 1) / Math.pow(ageHours + 2, gravity);
+        }
+    }
+
+    private static class Entry {
+        private final long postId;
+        private long likeCount;
+        private long commentCount;
+        private final long createdAt;
+        private double score;
+
+        private Entry(long postId, long likeCount, long commentCount, long createdAt) {
+            this.postId = postId;
+            this.likeCount = likeCount;
+            this.commentCount = commentCount;
+            this.createdAt = createdAt;
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package sungshin.sooon.util;
+
+import org.springframework.util.StringUtils;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.UUID;
+
+/*
+    이미지 저장소
+        storage.type 으로 구현을 고른다.
+            s3 (기본): S3ImageStorage
+            local    : LocalImageStorage. AWS 없이 로컬에서 전체 스택을 띄우거나 업로드 처리량을 잴 때
+ */
+public interface ImageStorage {
+
+    // 요청 순서대로 저장된 이미지(key, URL)를 돌려준다.
+    List<StoredImage> upload(List<MultipartFile> multipartFiles, String dirName);
+
+    // 저장된 이미지 읽기 (썸네일 생성용). 닫는 것은 호출하는 쪽 책임
+    InputStream open(String key) throws IOException;
+
+    // 서버에서 만든 작은 파일(썸네일) 저장. URL 을 돌려준다.
+    String store(String key, byte[] content, String contentType);
+
+    // 저장할 파일 이름. 클라이언트가 보낸 파일 이름은 쓰지 않고 확장자만 남긴다.
+    static String newFileName(String dirName, MultipartFile multipartFile) {
+        String extension = StringUtils.getFilenameExtension(multipartFile.getOriginalFilename());
+        if (extension == null || !extension.matches("[A-Za-z0-9]{1,10}")) {
+            return dirName + "/" + UUID.randomUUID();
+        }
+        return dirName + "/" + UUID.randomUUID() + "." + extension.toLowerCase();
+    }
+}
@@ -0,0 +1,111 @@
+package sungshin.sooon.util;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+    로컬 파일시스템 이미지 저장소 (storage.type=local)
+        AWS 없이 전체 스택을 띄우거나 업로드 처리량을 잴 때 쓴다.
+        업로드 스트림을 FileChannel.transferFrom 으로 chunkSize 씩 바로 파일에 쓴다. 파일 전체를 힙에 올리지 않는다.
+        ".part" 로 다 쓴 뒤 이름을 바꾸므로(atomic move) 쓰는 도중의 파일이 URL 로 보이지 않는다.
+
+    URL 은 baseUrl + "/" + 파일 이름 (기본 /api/v1/images/static/xxx.jpg, LocalImageController 가 서빙)
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "storage.type", havingValue = "local")
+public class LocalImageStorage implements ImageStorage {
+    private final Path rootDir;
+    private final String baseUrl;
+    private final long chunkSize;
+
+    public LocalImageStorage(@Value("${storage.local.dir:./data/images}") String rootDir,
+                             @Value("${storage.local.base-url:/api/v1/images}") String baseUrl,
+                             @Value("${storage.local.chunk-size:1048576}") long chunkSize) {
+        this.rootDir = Paths.get(rootDir).toAbsolutePath().normalize();
+        this.baseUrl = baseUrl;
+        this.chunkSize = chunkSize;
+    }
+
+    @Override
+    public List<StoredImage> upload(List<MultipartFile> multipartFiles, String dirName) {
+        List<StoredImage> uploadImages = new ArrayList<>(multipartFiles.size());
+        for (MultipartFile multipartFile : multipartFiles) {
+            String fileName = ImageStorage.newFileName(dirName, multipartFile);
+            try (InputStream inputStream = multipartFile.getInputStream()) {
+                write(inputStream, resolve(fileName));
+            } catch (IOException e) {
+                throw new IllegalArgumentException("error: MultipartFile read fail");
+            }
+            uploadImages.add(new StoredImage(fileName, baseUrl + "/" + fileName));
+        }
+        return uploadImages;
+    }
+
+    @Override
+    public InputStream open(String key) throws IOException {
+        Path path = resolve(key);
+        if (path == null) {
+            throw new NoSuchFileException(key);
+        }
+        return Files.newInputStream(path);
+    }
+
+    @Override
+    public String store(String key, byte[] content, String contentType) {
+        write(new ByteArrayInputStream(content), resolve(key));
+        return baseUrl + "/" + key;
+    }
+
+    public Path getRootDir() {
+        return rootDir;
+    }
+
+    // 저장소 밖(../ 등)을 가리키는 이름이면 null
+    public Path resolve(String fileName) {
+        Path path = rootDir.resolve(fileName).normalize();
+        return path.startsWith(rootDir) ? path : null;
+    }
+
+    private void write(InputStream inputStream, Path target) {
+        Path partial = target.resolveSibling(target.getFileName() + ".part");
+        try {
+            Files.createDirectories(target.getParent());
+            try (ReadableByteChannel source = Channels.newChannel(inputStream);
+                 FileChannel channel = FileChannel.open(partial, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+                long position = 0;
+                long transferred;
+                while ((transferred = channel.transferFrom(source, position, chunkSize)) > 0) {
+                    position += transferred;
+                }
+            }
+            Files.move(partial, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING); // 썸네일은 다시 만들면 덮어쓴다.
+        } catch (IOException e) {
+            try {
+                Files.deleteIfExists(partial);
+            } catch (IOException ignored) {
+                log.warn("임시 파일 삭제 실패: {}", partial);
+            }
+            throw new UncheckedIOException("이미지 저장 실패: " + target, e);
+        }
+    }
+}
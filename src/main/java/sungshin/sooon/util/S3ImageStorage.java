@@ -0,0 +1,138 @@
+package sungshin.sooon.util;
+
+import com.amazonaws.AmazonClientException;
+import com.amazonaws.services.s3.AmazonS3Client;
+import com.amazonaws.services.s3.model.CannedAccessControlList;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.PutObjectRequest;
+import com.amazonaws.services.s3.transfer.TransferManager;
+import com.amazonaws.services.s3.transfer.TransferManagerBuilder;
+import com.amazonaws.services.s3.transfer.Upload;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.web.multipart.MultipartFile;
+
+import javax.annotation.PreDestroy;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/*
+    S3 이미지 저장소 (storage.type=s3, 기본값)
+        예전에는 file.getBytes() 로 파일 전체를 힙에 올리고, user.dir 에 클라이언트가 보낸 파일 이름 그대로 복사본을 만든 뒤(동시에 같은 이름이 오면 충돌)
+        한 장씩 차례로 올렸다.
+        => MultipartFile 의 InputStream 을 길이(Content-Length)와 함께 S3 로 바로 흘려보낸다. 임시 파일도, 파일 전체 byte[] 도 만들지 않는다.
+           multipartThreshold 이상인 파일은 partSize 단위 multipart upload 로 올린다.
+           한 요청의 파일들은 TransferManager 의 스레드 풀(threads 개)에서 동시에 올리고, 모두 끝나면 요청 순서대로 URL 을 돌려준다.
+
+    재시도를 위해 SDK 가 스트림을 되감을 수 있도록 최대 한 part(또는 파일 크기)만큼만 mark 한다.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "storage.type", havingValue = "s3", matchIfMissing = true)
+public class S3ImageStorage implements ImageStorage {
+
+    private final AmazonS3Client amazonS3Client;
+    private final TransferManager transferManager;
+    private final String bucket;  // S3 버킷 이름
+    private final long partSize;
+
+    public S3ImageStorage(AmazonS3Client amazonS3Client,
+                      @Value("${cloud.aws.s3.bucket}") String bucket,
+                      @Value("${cloud.aws.s3.upload.threads:8}") int threads,
+                      @Value("${cloud.aws.s3.upload.multipart-threshold:8388608}") long multipartThreshold,
+                      @Value("${cloud.aws.s3.upload.part-size:5242880}") long partSize) {
+        this.amazonS3Client = amazonS3Client;
+        this.bucket = bucket;
+        this.partSize = partSize;
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.transferManager = TransferManagerBuilder.standard()
+                .withS3Client(amazonS3Client)
+                .withExecutorFactory(() -> Executors.newFixedThreadPool(threads, runnable -> {
+                    Thread thread = new Thread(runnable, "s3-upload-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }))
+                .withMultipartUploadThreshold(multipartThreshold)
+                .withMinimumUploadPartSize(partSize)
+                .build();
+    }
+
+    @Override
+    public List<StoredImage> upload(List<MultipartFile> multipartFiles, String dirName) {
+        List<Upload> uploads = new ArrayList<>(multipartFiles.size());
+        List<String> fileNames = new ArrayList<>(multipartFiles.size());
+        try {
+            for (MultipartFile multipartFile : multipartFiles) {
+                String fileName = ImageStorage.newFileName(dirName, multipartFile);   // S3에 저장된 파일 이름
+                uploads.add(transferManager.upload(putObjectRequest(multipartFile, fileName)));  // 비동기. 바로 다음 파일을 올리기 시작한다.
+                fileNames.add(fileName);
+            }
+
+            List<StoredImage> uploadImages = new ArrayList<>(uploads.size());
+            for (int i = 0; i < uploads.size(); i++) {
+                uploads.get(i).waitForUploadResult();
+                uploadImages.add(new StoredImage(fileNames.get(i), amazonS3Client.getUrl(bucket, fileNames.get(i)).toString()));
+            }
+            return uploadImages;
+        } catch (IOException e) {
+            abort(uploads);
+            throw new IllegalArgumentException("error: MultipartFile read fail");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            abort(uploads);
+            throw new IllegalStateException("S3 업로드가 중단되었습니다.", e);
+        } catch (AmazonClientException e) {
+            abort(uploads); // 하나라도 실패하면 나머지도 멈춘다. (이미 끝난 파일은 남는다)
+            throw e;
+        }
+    }
+
+    @Override
+    public InputStream open(String key) {
+        return amazonS3Client.getObject(bucket, key).getObjectContent();
+    }
+
+    @Override
+    public String store(String key, byte[] content, String contentType) {
+        ObjectMetadata metadata = new ObjectMetadata();
+        metadata.setContentLength(content.length);
+        metadata.setContentType(contentType);
+        amazonS3Client.putObject(new PutObjectRequest(bucket, key, new ByteArrayInputStream(content), metadata)
+                .withCannedAcl(CannedAccessControlList.PublicRead));
+        return amazonS3Client.getUrl(bucket, key).toString();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        transferManager.shutdownNow(false); // AmazonS3Client 는 빈이라 같이 닫지 않는다.
+    }
+
+    private PutObjectRequest putObjectRequest(MultipartFile multipartFile, String fileName) throws IOException {
+        ObjectMetadata metadata = new ObjectMetadata();
+        metadata.setContentLength(multipartFile.getSize()); // 길이를 모르면 SDK 가 스트림 전체를 메모리에 올린다.
+        metadata.setContentType(multipartFile.getContentType());
+
+        PutObjectRequest request = new PutObjectRequest(bucket, fileName, multipartFile.getInputStream(), metadata)
+                .withCannedAcl(CannedAccessControlList.PublicRead);
+        request.getRequestClientOptions().setReadLimit((int) Math.min(multipartFile.getSize(), partSize) + 1);
+        return request;
+    }
+
+    private static void abort(List<Upload> uploads) {
+        uploads.forEach(upload -> {
+            try {
+                upload.abort();
+            } catch (RuntimeException e) {
+                log.warn("S3 업로드 중단 실패", e);
+            }
+        });
+    }
+}
@@ -0,0 +1,12 @@
+package sungshin.sooon.util;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+// 저장소에 저장된 이미지. key 는 저장소 안의 이름(static/xxx.jpg), url 은 클라이언트에 돌려주는 주소
+@Getter
+@RequiredArgsConstructor
+public class StoredImage {
+    private final String key;
+    private final String url;
+}
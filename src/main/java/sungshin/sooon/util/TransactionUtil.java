@@ -0,0 +1,26 @@
+package sungshin.sooon.util;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+public class TransactionUtil {
+    private TransactionUtil() {
+    }
+
+    // 캐시 무효화처럼 DB 에 커밋된 뒤에 해야 하는 작업을 등록한다.
+    // 커밋 전에 캐시를 비우면 다른 요청이 아직 커밋되지 않은(=예전) 데이터를 다시 캐시에 채워 넣을 수 있기 때문
+    // 트랜잭션 밖에서 호출되면(단위 테스트 등) 바로 실행한다.
+    public static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
@@ -0,0 +1,128 @@
+package sungshin.sooon.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.web.context.request.ServletWebRequest;
+import sungshin.sooon.exception.CustomizedResponseEntityExceptionHandler;
+import sungshin.sooon.exception.ExceptionResponse;
+import sungshin.sooon.exception.ServiceBusyException;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BoundedPasswordEncoderTest {
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final CountDownLatch started = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    private BoundedPasswordEncoder boundedPasswordEncoder;
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        if (boundedPasswordEncoder != null) {
+            boundedPasswordEncoder.shutdown();
+        }
+    }
+
+    @Test
+    void encode_runsDelegateOnPool() {
+        //given
+        boundedPasswordEncoder = new BoundedPasswordEncoder(new BCryptPasswordEncoder(4), meterRegistry, 1, 1, 5000, 2);
+
+        //when
+        String encoded = boundedPasswordEncoder.encode("password123!");
+
+        //then
+        assertThat(boundedPasswordEncoder.matches("password123!", encoded)).isTrue();
+        assertThat(boundedPasswordEncoder.matches("wrong", encoded)).isFalse();
+    }
+
+    @Test
+    void encode_ifQueueFull_throwsServiceBusy() throws Exception {
+        //given 스레드 1개는 해시 중이고, 대기열 1칸도 찼다.
+        boundedPasswordEncoder = new BoundedPasswordEncoder(blockingEncoder(), meterRegistry, 1, 1, 5000, 3);
+        CompletableFuture<String> running = CompletableFuture.supplyAsync(() -> boundedPasswordEncoder.encode("first"));
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        CompletableFuture<String> queued = CompletableFuture.supplyAsync(() -> boundedPasswordEncoder.encode("second"));
+        awaitQueued(1);
+
+        //when then 세 번째는 기다리지 않고 바로 거절된다.
+        assertThatThrownBy(() -> boundedPasswordEncoder.encode("third"))
+                .isInstanceOfSatisfying(ServiceBusyException.class, e -> assertThat(e.getRetryAfterSeconds()).isEqualTo(3));
+        assertThat(meterRegistry.get("password.hash.rejected").counter().count()).isEqualTo(1);
+
+        release.countDown();
+        assertThat(running.get(5, TimeUnit.SECONDS)).isEqualTo("encoded:first");
+        assertThat(queued.get(5, TimeUnit.SECONDS)).isEqualTo("encoded:second");
+    }
+
+    @Test
+    void matches_ifHashTakesTooLong_throwsServiceBusy() {
+        //given
+        boundedPasswordEncoder = new BoundedPasswordEncoder(blockingEncoder(), meterRegistry, 1, 1, 50, 2);
+
+        //when then
+        assertThatThrownBy(() -> boundedPasswordEncoder.matches("password", "encoded:password"))
+                .isInstanceOf(ServiceBusyException.class);
+        assertThat(meterRegistry.get("password.hash.rejected").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void serviceBusy_mapsTo503WithRetryAfter() {
+        //when
+        ResponseEntity<ExceptionResponse> response = new CustomizedResponseEntityExceptionHandler()
+                .handleServiceBusyException(new ServiceBusyException("로그인 요청이 많아 잠시 후 다시 시도해주세요.", 2), new ServletWebRequest(new MockHttpServletRequest()));
+
+        //then
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+        assertThat(response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isEqualTo("2");
+    }
+
+    // release 될 때까지 끝나지 않는 해시
+    private PasswordEncoder blockingEncoder() {
+        return new PasswordEncoder() {
+            @Override
+            public String encode(CharSequence rawPassword) {
+                block();
+                return "encoded:" + rawPassword;
+            }
+
+            @Override
+            public boolean matches(CharSequence rawPassword, String encodedPassword) {
+                block();
+                return encodedPassword.equals("encoded:" + rawPassword);
+            }
+
+            private void block() {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) { // 시간 초과로 취소된 작업
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+    }
+
+    private void awaitQueued(int expected) throws InterruptedException {
+        for (int i = 0; i < 200; i++) {
+            if (meterRegistry.get("executor.queued").tag("name", "password.hash").gauge().value() == expected) {
+                return;
+            }
+            Thread.sleep(25);
+        }
+        throw new AssertionError("해시 작업이 대기열에 들어가지 않았습니다.");
+    }
+}
@@ -0,0 +1,98 @@
+package sungshin.sooon.config;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.userdetails.User;
+
+import java.security.Key;
+import java.util.Date;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ExtendWith(MockitoExtension.class)
+class TokenProviderTest {
+    private static final String SECRET = "bHVuaXQtc3ByaW5nLWJvb3QtcHJvamVjdC1ieS0yeWVzZXVsLWxvbmdlci1sb25nZXItbG9uZ2VyLWxvbmdlci1sdW5pdC1wbGVhc2U=";
+    private static final String EMAIL = "chaeppy@sswu.community";
+
+    @Mock
+    private TokenRevocationStore tokenRevocationStore;
+
+    private VerifiedTokenCache verifiedTokenCache;
+
+    private TokenProvider tokenProvider;
+
+    @BeforeEach
+    void setUp() {
+        verifiedTokenCache = new VerifiedTokenCache(new SimpleMeterRegistry(), 10);
+        tokenProvider = new TokenProvider(SECRET, verifiedTokenCache, tokenRevocationStore);
+    }
+
+    @Test
+    void authenticate_validTokenIsCached() {
+        //given
+        String accessToken = tokenProvider.generateTokenDto(1L, EMAIL, "채피", "ROLE_USER").getAccessToken();
+
+        //when
+        Authentication first = tokenProvider.authenticate(accessToken);
+        Authentication second = tokenProvider.authenticate(accessToken);
+
+        //then
+        assertThat(first.getName()).isEqualTo(EMAIL);
+        assertThat(second.getName()).isEqualTo(EMAIL);
+        assertThat(verifiedTokenCache.size()).isEqualTo(1);
+    }
+
+    @Test
+    void authenticate_ifSignatureIsInvalid_returnsNull() {
+        //given 다른 키로 서명한 토큰
+        Key otherKey = Keys.secretKeyFor(SignatureAlgorithm.HS512);
+        String forged = accessToken(otherKey, new Date(System.currentTimeMillis() + 60_000));
+
+        //when
+        Authentication authentication = tokenProvider.authenticate(forged);
+
+        //then 검증에 실패한 토큰은 캐시에도 들어가지 않는다.
+        assertThat(authentication).isNull();
+        assertThat(verifiedTokenCache.size()).isZero();
+    }
+
+    @Test
+    void authenticate_ifCachedTokenExpired_returnsNull() {
+        //given 검증해 둔 뒤 exp 가 지난 토큰이 캐시에 남아 있다.
+        Date expiredAt = new Date(System.currentTimeMillis() - 1000);
+        String expired = accessToken(Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET)), expiredAt);
+        verifiedTokenCache.put(VerifiedTokenCache.digest(expired), new VerifiedTokenCache.Entry(
+                new User(EMAIL, "", AuthorityUtils.createAuthorityList("ROLE_USER")),
+                AuthorityUtils.createAuthorityList("ROLE_USER"), "jti-1", expiredAt.getTime()));
+
+        //when
+        Authentication authentication = tokenProvider.authenticate(expired);
+
+        //then 캐시 항목은 버려지고, 다시 파싱해도 만료라서 거절된다.
+        assertThat(authentication).isNull();
+        assertThat(verifiedTokenCache.size()).isZero();
+    }
+
+    private String accessToken(Key key, Date expiration) {
+        return Jwts.builder()
+                .setSubject(EMAIL)
+                .setId(UUID.randomUUID().toString())
+                .claim("auth", "ROLE_USER")
+                .claim("aid", 1L)
+                .claim("nick", "채피")
+                .setExpiration(expiration)
+                .signWith(key, SignatureAlgorithm.HS512)
+                .compact();
+    }
+}
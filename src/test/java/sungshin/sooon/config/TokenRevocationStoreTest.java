@@ -0,0 +1,96 @@
+package sungshin.sooon.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import sungshin.sooon.domain.entity.RevokedToken;
+import sungshin.sooon.domain.repository.RevokedTokenRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+
+@ExtendWith(MockitoExtension.class)
+class TokenRevocationStoreTest {
+
+    @Mock
+    private RevokedTokenRepository revokedTokenRepository;
+
+    private TokenRevocationStore tokenRevocationStore;
+
+    @BeforeEach
+    void setUp() {
+        tokenRevocationStore = new TokenRevocationStore(revokedTokenRepository, new SimpleMeterRegistry(), 300000, 1000, 300000);
+    }
+
+    @Test
+    void revoke_onlyRevokedTokenIsRejected() {
+        //given
+        long expiresAt = System.currentTimeMillis() + 60_000;
+
+        //when
+        tokenRevocationStore.revoke("jti-1", expiresAt);
+
+        //then
+        assertThat(tokenRevocationStore.isRevoked("jti-1", expiresAt)).isTrue();
+        assertThat(tokenRevocationStore.isRevoked("jti-2", expiresAt)).isFalse();
+        assertThat(tokenRevocationStore.isRevoked(null, expiresAt)).isFalse();
+    }
+
+    @Test
+    void load_restoresRevokedTokens() {
+        //given 재기동 전에 폐기된 토큰
+        long expiresAt = System.currentTimeMillis() + 60_000;
+        given(revokedTokenRepository.findRevokedAfter(eq(0L), anyLong()))
+                .willReturn(List.of(RevokedToken.builder().tokenId("jti-1").expiresAt(expiresAt).revokedAt(System.currentTimeMillis()).build()));
+
+        //when
+        tokenRevocationStore.load();
+
+        //then
+        assertThat(tokenRevocationStore.isRevoked("jti-1", expiresAt)).isTrue();
+    }
+
+    @Test
+    void sync_picksUpLateCommittedRevoke() {
+        //given DB 를 흉내 낸다. revokedAt 이후의 행만 돌려준다.
+        long now = System.currentTimeMillis();
+        long expiresAt = now + 60_000;
+        List<RevokedToken> rows = new ArrayList<>();
+        given(revokedTokenRepository.findRevokedAfter(anyLong(), anyLong())).willAnswer(invocation -> rows.stream()
+                .filter(row -> row.getRevokedAt() > invocation.<Long>getArgument(0))
+                .collect(Collectors.toList()));
+        rows.add(RevokedToken.builder().tokenId("jti-1").expiresAt(expiresAt).revokedAt(now).build());
+        tokenRevocationStore.load();
+
+        //when 시계가 30초 느린 인스턴스에서 폐기했거나 커밋이 30초 늦게 보였다.
+        rows.add(RevokedToken.builder().tokenId("jti-2").expiresAt(expiresAt).revokedAt(now - 30_000).build());
+        tokenRevocationStore.sync();
+
+        //then
+        assertThat(tokenRevocationStore.isRevoked("jti-1", expiresAt)).isTrue();
+        assertThat(tokenRevocationStore.isRevoked("jti-2", expiresAt)).isTrue();
+    }
+
+    @Test
+    void sweep_dropsExpiredBuckets() {
+        //given
+        long expiresAt = System.currentTimeMillis() + 60_000;
+        tokenRevocationStore.revoke("jti-1", expiresAt);
+        tokenRevocationStore.revoke("jti-2", System.currentTimeMillis() - 1); // 이미 만료된 토큰은 기록하지 않는다.
+
+        //when
+        tokenRevocationStore.sweep();
+
+        //then
+        assertThat(tokenRevocationStore.size()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,51 @@
+package sungshin.sooon.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.userdetails.User;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class VerifiedTokenCacheTest {
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void put_overMaxEntries_evictsLeastRecentlyUsed() {
+        //given a, b 를 넣고 a 를 다시 읽어서 b 가 가장 오래 안 쓰인 항목이 됐다.
+        VerifiedTokenCache verifiedTokenCache = new VerifiedTokenCache(meterRegistry, 2);
+        verifiedTokenCache.put("a", entry("jti-a", System.currentTimeMillis() + 60_000));
+        verifiedTokenCache.put("b", entry("jti-b", System.currentTimeMillis() + 60_000));
+        assertThat(verifiedTokenCache.get("a")).isNotNull();
+
+        //when
+        verifiedTokenCache.put("c", entry("jti-c", System.currentTimeMillis() + 60_000));
+
+        //then
+        assertThat(verifiedTokenCache.size()).isEqualTo(2);
+        assertThat(verifiedTokenCache.get("b")).isNull();
+        assertThat(verifiedTokenCache.get("a").getTokenId()).isEqualTo("jti-a");
+        assertThat(verifiedTokenCache.get("c").getTokenId()).isEqualTo("jti-c");
+    }
+
+    @Test
+    void get_ifExpired_returnsNullAndRemoves() {
+        //given
+        VerifiedTokenCache verifiedTokenCache = new VerifiedTokenCache(meterRegistry, 10);
+        verifiedTokenCache.put("expired", entry("jti-1", System.currentTimeMillis() - 1));
+
+        //when
+        VerifiedTokenCache.Entry entry = verifiedTokenCache.get("expired");
+
+        //then 만료된 항목은 히트로 세지 않고 캐시에서도 빠진다.
+        assertThat(entry).isNull();
+        assertThat(verifiedTokenCache.size()).isZero();
+        assertThat(meterRegistry.get("jwt.verified.cache.requests").tag("result", "hit").counter().count()).isZero();
+        assertThat(meterRegistry.get("jwt.verified.cache.requests").tag("result", "miss").counter().count()).isEqualTo(1);
+    }
+
+    private VerifiedTokenCache.Entry entry(String tokenId, long expiresAt) {
+        return new VerifiedTokenCache.Entry(new User("chaeppy@sswu.community", "", AuthorityUtils.createAuthorityList("ROLE_USER")),
+                AuthorityUtils.createAuthorityList("ROLE_USER"), tokenId, expiresAt);
+    }
+}
@@ -0,0 +1,129 @@
+package sungshin.sooon.controller;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import sungshin.sooon.util.LocalImageStorage;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class LocalImageControllerTest {
+    private static final String URL = "/api/v1/images/static/cat.jpg";
+    private static final byte[] IMAGE = "0123456789".getBytes();
+
+    @TempDir
+    Path tempDir;
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        Path rootDir = tempDir.resolve("images");
+        Files.createDirectories(rootDir.resolve("static"));
+        Files.write(rootDir.resolve("static/cat.jpg"), IMAGE);
+        Files.write(rootDir.resolve("static/dog.jpg.part"), IMAGE);
+        Files.write(tempDir.resolve("secret.jpg"), IMAGE); // 저장소 밖의 파일
+
+        LocalImageStorage localImageStorage = new LocalImageStorage(rootDir.toString(), "/api/v1/images", 4);
+        mockMvc = MockMvcBuilders.standaloneSetup(new LocalImageController(localImageStorage, new SimpleMeterRegistry())).build();
+    }
+
+    @Test
+    void serve_returnsWholeFile() throws Exception {
+        mockMvc.perform(get(URL))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andExpect(header().string(HttpHeaders.ACCEPT_RANGES, "bytes"))
+                .andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, IMAGE.length))
+                .andExpect(content().contentType("image/jpeg"))
+                .andExpect(content().bytes(IMAGE));
+    }
+
+    @Test
+    void serve_ifNoneMatch_returnsNotModified() throws Exception {
+        //given
+        String etag = etag();
+
+        //when then
+        mockMvc.perform(get(URL).header(HttpHeaders.IF_NONE_MATCH, "\"other\", " + etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, etag))
+                .andExpect(content().bytes(new byte[0]));
+    }
+
+    @Test
+    void serve_singleRange_returnsPartialContent() throws Exception {
+        mockMvc.perform(get(URL).header(HttpHeaders.RANGE, "bytes=2-5"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 2-5/10"))
+                .andExpect(header().longValue(HttpHeaders.CONTENT_LENGTH, 4))
+                .andExpect(content().bytes("2345".getBytes()));
+    }
+
+    @Test
+    void serve_ifRangeMatches_returnsPartialContent() throws Exception {
+        mockMvc.perform(get(URL).header(HttpHeaders.RANGE, "bytes=-3").header(HttpHeaders.IF_RANGE, etag()))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 7-9/10"))
+                .andExpect(content().bytes("789".getBytes()));
+    }
+
+    @Test
+    void serve_unsatisfiableRange_returns416() throws Exception {
+        mockMvc.perform(get(URL).header(HttpHeaders.RANGE, "bytes=10-"))
+                .andExpect(status().isRequestedRangeNotSatisfiable())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes */10"));
+    }
+
+    @Test
+    void serve_multipleRanges_returnsWholeFile() throws Exception {
+        mockMvc.perform(get(URL).header(HttpHeaders.RANGE, "bytes=0-1,4-5"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_RANGE))
+                .andExpect(content().bytes(IMAGE));
+    }
+
+    @Test
+    void serve_ifRangeMismatch_returnsWholeFile() throws Exception {
+        mockMvc.perform(get(URL).header(HttpHeaders.RANGE, "bytes=2-5").header(HttpHeaders.IF_RANGE, "\"stale\""))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_RANGE))
+                .andExpect(content().bytes(IMAGE));
+    }
+
+    @Test
+    void serve_pathTraversal_returns404() throws Exception {
+        mockMvc.perform(get("/api/v1/images/../secret.jpg"))
+                .andExpect(status().isNotFound());
+        mockMvc.perform(get("/api/v1/images/static/../../secret.jpg"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void serve_partialUpload_returns404() throws Exception {
+        //given 아직 쓰는 중인 파일
+        mockMvc.perform(get("/api/v1/images/static/dog.jpg.part"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void serve_missingFile_returns404() throws Exception {
+        mockMvc.perform(get("/api/v1/images/static/none.jpg"))
+                .andExpect(status().isNotFound());
+    }
+
+    private String etag() throws Exception {
+        return mockMvc.perform(get(URL)).andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+    }
+}
@@ -0,0 +1,97 @@
+package sungshin.sooon.domain.repository;
+
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import sungshin.sooon.domain.entity.Account;
+import sungshin.sooon.domain.entity.Post;
+
+import javax.persistence.EntityManagerFactory;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/*
+    피드 한 페이지(20개)를 읽을 때 실행되는 SQL 수와 영속성 컨텍스트에 올라가는 엔티티 수 비교
+        작성자가 모두 다른 최악의 경우로, 예전 방식(Post 엔티티 + EAGER account)과 지금의 PostSummary 프로젝션을 같은 데이터로 읽는다.
+        엔티티마다 스냅샷과 EntityEntry 가 같이 잡히므로 관리 엔티티 수를 힙 사용량의 대용으로 본다.
+ */
+@Slf4j
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class FeedQueryStatementCountTest {
+    private static final int PAGE_SIZE = 20;
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private TestEntityManager testEntityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        for (int i = 0; i < PAGE_SIZE; i++) {
+            Account account = accountRepository.save(Account.builder().email("user" + i + "@sswu.community").password("tempPassword123").nickname("작성자" + i).registeredDateTime(LocalDateTime.now()).build());
+            Post post = Post.builder().title("포스트 " + i).content("포스트 테스트 입니다").isAnonymous(false).build();
+            post.setAccount(account);
+            post.setCreatedAt(LocalDateTime.now().minusMinutes(i));
+            postRepository.save(post);
+        }
+        testEntityManager.flush();
+        testEntityManager.clear();
+
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void feedPage_isOneStatementWithNoManagedEntities() {
+        //when
+        Slice<PostSummary> page = postRepository.findFeedOrderByCreatedAt(PageRequest.of(0, PAGE_SIZE));
+
+        //then
+        long statements = statistics.getPrepareStatementCount();
+        int managed = session().getStatistics().getEntityCount();
+        log.info("프로젝션 피드 {}개: SQL {}개, 관리 엔티티 {}개", page.getNumberOfElements(), statements, managed);
+        assertThat(page.getNumberOfElements()).isEqualTo(PAGE_SIZE);
+        assertThat(page.getContent().get(0).getAccountNickname()).isEqualTo("작성자0");
+        assertThat(statements).isEqualTo(1);
+        assertThat(managed).isZero();
+    }
+
+    @Test
+    void entityFeedPage_loadsEachAuthorSeparately() {
+        //when 예전 방식: Post 엔티티로 읽으면 EAGER account 가 작성자마다 select 된다.
+        List<Post> posts = testEntityManager.getEntityManager()
+                .createQuery("select p from Post p order by p.createdAt desc, p.id desc", Post.class)
+                .setMaxResults(PAGE_SIZE + 1)
+                .getResultList();
+
+        //then
+        long statements = statistics.getPrepareStatementCount();
+        int managed = session().getStatistics().getEntityCount();
+        log.info("엔티티 피드 {}개: SQL {}개, 관리 엔티티 {}개", posts.size(), statements, managed);
+        assertThat(statements).isEqualTo(1 + PAGE_SIZE);
+        assertThat(managed).isEqualTo(PAGE_SIZE * 2); // 글 + 작성자
+    }
+
+    private Session session() {
+        return testEntityManager.getEntityManager().unwrap(Session.class);
+    }
+}
@@ -0,0 +1,81 @@
+package sungshin.sooon.domain.repository;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+import sungshin.sooon.domain.entity.Account;
+import sungshin.sooon.domain.entity.Post;
+import sungshin.sooon.domain.entity.PostComment;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+class PostCommentRepositoryTest {
+
+    @Autowired
+    private PostCommentRepository postCommentRepository;
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Test
+    void findPageByPostIdAfter_returnsCommentsAfterCursor() {
+        //given 같은 시각에 작성된 댓글은 id 로 순서를 정한다.
+        Account account = Account.builder().email("chaeppy@sswu.community").password("tempPassword123").nickname("채피").registeredDateTime(LocalDateTime.now()).build();
+        accountRepository.save(account);
+
+        Post post = Post.builder().title("포스트 테스트").content("포스트 테스트 입니다").isAnonymous(false).build();
+        post.setAccount(account);
+        postRepository.save(post);
+
+        LocalDateTime now = LocalDateTime.now();
+        PostComment comment1 = saveComment(account, post, now.minusMinutes(1));
+        PostComment comment2 = saveComment(account, post, now);
+        PostComment comment3 = saveComment(account, post, now);
+
+        //when
+        List<PostComment> firstPage = postCommentRepository.findPageByPostId(post.getId(), PageRequest.of(0, 2));
+        List<PostComment> nextPage = postCommentRepository.findPageByPostIdAfter(post.getId(), comment2.getCreatedAt(), comment2.getId(), PageRequest.of(0, 2));
+
+        //then
+        assertThat(firstPage).extracting(PostComment::getId).containsExactly(comment1.getId(), comment2.getId());
+        assertThat(nextPage).extracting(PostComment::getId).containsExactly(comment3.getId());
+    }
+
+    @Test
+    void findByIdAndPostId_ifCommentBelongsToAnotherPost() {
+        //given
+        Account account = Account.builder().email("chaeppy@sswu.community").password("tempPassword123").nickname("채피").registeredDateTime(LocalDateTime.now()).build();
+        accountRepository.save(account);
+
+        Post post = Post.builder().title("포스트 테스트").content("포스트 테스트 입니다").isAnonymous(false).build();
+        post.setAccount(account);
+        postRepository.save(post);
+
+        Post otherPost = Post.builder().title("포스트 테스트2").content("포스트 테스트2 입니다").isAnonymous(false).build();
+        otherPost.setAccount(account);
+        postRepository.save(otherPost);
+
+        PostComment comment = saveComment(account, post, LocalDateTime.now());
+
+        //when
+        //then
+        assertThat(postCommentRepository.findByIdAndPostId(comment.getId(), post.getId())).isPresent();
+        assertThat(postCommentRepository.findByIdAndPostId(comment.getId(), otherPost.getId())).isEmpty();
+    }
+
+    private PostComment saveComment(Account account, Post post, LocalDateTime createdAt) {
+        PostComment comment = PostComment.builder().comment("댓글 테스트").isAnonymous(false).build();
+        comment.setAccount(account);
+        comment.setPost(post);
+        comment.setCreatedAt(createdAt); //spring boot Test 아니라서 BaseEntity 가 정상작동하지 않아 직접 설정
+        return postCommentRepository.save(comment);
+    }
+}
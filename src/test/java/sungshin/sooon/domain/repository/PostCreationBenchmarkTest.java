@@ -0,0 +1,100 @@
+package sungshin.sooon.domain.repository;
+
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Hibernate;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+import sungshin.sooon.domain.entity.Account;
+import sungshin.sooon.domain.entity.Post;
+
+import javax.persistence.EntityManagerFactory;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/*
+    글 작성 비용이 작성자가 이미 쓴 글 수와 상관없는지 확인하는 벤치마크
+        글이 없는 계정과 글이 1만 개인 계정으로 같은 수의 글을 저장하고, 실행된 SQL 수와 평균 저장 시간을 비교한다.
+        시간은 환경에 따라 흔들리므로 로그로만 남기고, 검증은 SQL 수와 posts 컬렉션이 초기화되지 않았는지로 한다.
+ */
+@Slf4j
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+class PostCreationBenchmarkTest {
+    private static final int EXISTING_POSTS = 10_000;
+    private static final int INSERTS = 200;
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TestEntityManager testEntityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void savePost_doesNotDependOnAuthorsPostCount() {
+        //given
+        Account newbie = accountRepository.save(Account.builder().email("newbie@sswu.community").password("tempPassword123").nickname("새내기").registeredDateTime(LocalDateTime.now()).build());
+        Account veteran = accountRepository.save(Account.builder().email("veteran@sswu.community").password("tempPassword123").nickname("고인물").registeredDateTime(LocalDateTime.now()).build());
+        insertPosts(veteran.getId(), EXISTING_POSTS);
+
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        savePosts(newbie.getId(), statistics); // 워밍업
+
+        //when
+        long[] newbieResult = savePosts(newbie.getId(), statistics);
+        long[] veteranResult = savePosts(veteran.getId(), statistics);
+
+        //then
+        log.info("글 {}개 저장 - 기존 글 0개: 평균 {}us, SQL {}개 / 기존 글 {}개: 평균 {}us, SQL {}개",
+                INSERTS,
+                TimeUnit.NANOSECONDS.toMicros(newbieResult[0] / INSERTS), newbieResult[1],
+                EXISTING_POSTS,
+                TimeUnit.NANOSECONDS.toMicros(veteranResult[0] / INSERTS), veteranResult[1]);
+        assertThat(veteranResult[1]).isEqualTo(newbieResult[1]);
+        assertThat(veteranResult[1]).isEqualTo(INSERTS + 1); // 계정 조회 1 + insert
+    }
+
+    // [걸린 시간(ns), 실행된 SQL 수]
+    private long[] savePosts(long accountId, Statistics statistics) {
+        testEntityManager.clear();
+        statistics.clear();
+
+        long start = System.nanoTime();
+        Account account = accountRepository.findById(accountId).orElseThrow();
+        for (int i = 0; i < INSERTS; i++) {
+            Post post = Post.builder().title("포스트 테스트").content("포스트 테스트 입니다").isAnonymous(true).build();
+            post.setAccount(account);
+            postRepository.save(post); // IDENTITY 라서 바로 insert
+        }
+        long elapsed = System.nanoTime() - start;
+
+        assertThat(Hibernate.isInitialized(account.getPosts())).isFalse();
+        return new long[]{elapsed, statistics.getPrepareStatementCount()};
+    }
+
+    private void insertPosts(long accountId, int count) {
+        Timestamp createdAt = Timestamp.valueOf(LocalDateTime.now().minusDays(1));
+        List<Object[]> rows = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            rows.add(new Object[]{"기존 글 " + i, "기존 글 내용", false, accountId, createdAt});
+        }
+        jdbcTemplate.batchUpdate("insert into post (title, content, is_anonymous, account_id, created_at) values (?, ?, ?, ?, ?)", rows);
+    }
+}
@@ -5,11 +5,15 @@ import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
 import sungshin.sooon.domain.entity.Account;
 import sungshin.sooon.domain.entity.Post;
 
 import java.time.LocalDateTime;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -34,7 +38,7 @@ class PostRepositoryTest {
     // 우리가 검증해야 할것은 인터페이스에 추가한 메소드다.
     // 존재할 경우 존재하지 않을 경우 둘다 테스트 해야한다.
     @Test
-    void FindAllByAccountOrderByCreatedAt_IfPostExists() {
+    void findAllSummaryByAccountId_IfPostExists() {
         //given
         Account account = Account.builder().email("chaeppy@sswu.community").password("tempPassword123").nickname("채피").registeredDateTime(LocalDateTime.now()).build();
         accountRepository.save(account);
@@ -51,22 +55,103 @@ class PostRepositoryTest {
         postRepository.save(post2);
 
         //when
-        List<Post> posts = postRepository.findAllByAccountOrderByCreatedAtDesc(account);
+        List<PostSummary> posts = postRepository.findAllSummaryByAccountId(account.getId());
 
         //then
-        assertThat(posts).containsSequence(post2, post1);
+        assertThat(posts).extracting(PostSummary::getId).containsExactly(post2.getId(), post1.getId());
     }
 
     @Test
-    void FindAllByAccountOrderByCreatedAt_IfPostDoesNotExists() {
+    void findAllSummaryByAccountId_IfPostDoesNotExists() {
         //given
         Account account = Account.builder().email("chaeppy@sswu.community").password("tempPassword123").nickname("채피").registeredDateTime(LocalDateTime.now()).build();
         accountRepository.save(account);
 
         //when
-        List<Post> posts = postRepository.findAllByAccountOrderByCreatedAtDesc(account);
+        List<PostSummary> posts = postRepository.findAllSummaryByAccountId(account.getId());
 
         //then
         assertThat(posts).isEmpty();
     }
-}
\ No newline at end of file
+
+    @Test
+    void postEquality_isIdBased() {
+        //given
+        Account account = Account.builder().email("chaeppy@sswu.community").password("tempPassword123").nickname("채피").registeredDateTime(LocalDateTime.now()).build();
+        accountRepository.save(account);
+
+        Post post = Post.builder().title("포스트 테스트").content("포스트 테스트 입니다").isAnonymous(false).build();
+        post.setAccount(account);
+        Post sameContent = Post.builder().title("포스트 테스트").content("포스트 테스트 입니다").isAnonymous(false).build();
+        sameContent.setAccount(account);
+        Set<Post> posts = new HashSet<>(List.of(post));
+
+        //when
+        postRepository.save(post);
+
+        //then 저장 전 글끼리는 내용이 같아도 다르고, 저장 후에도 같은 HashSet 칸에서 찾을 수 있다.
+        assertThat(post).isNotEqualTo(sameContent);
+        assertThat(posts).contains(post);
+        assertThat(Post.builder().id(post.getId()).build()).isEqualTo(post);
+        assertThat(postRepository.getById(post.getId())).isEqualTo(post);
+    }
+
+    @Test
+    void findFeedAfterCreatedAt_returnsPostsAfterCursor() {
+        //given
+        Account account = Account.builder().email("chaeppy@sswu.community").password("tempPassword123").nickname("채피").registeredDateTime(LocalDateTime.now()).build();
+        accountRepository.save(account);
+
+        LocalDateTime now = LocalDateTime.now().withNano(0);
+        Post post1 = Post.builder().title("포스트 테스트1").content("포스트 테스트1 입니다").isAnonymous(false).build();
+        post1.setAccount(account);
+        post1.setCreatedAt(now.minusDays(1));
+
+        Post post2 = Post.builder().title("포스트 테스트2").content("포스트 테스트2 입니다").isAnonymous(false).build();
+        post2.setAccount(account);
+        post2.setCreatedAt(now);
+
+        Post post3 = Post.builder().title("포스트 테스트3").content("포스트 테스트3 입니다").isAnonymous(false).build();
+        post3.setAccount(account);
+        post3.setCreatedAt(now); // post2 와 createdAt 이 같을 때는 id 로 순서가 정해져야 한다.
+
+        postRepository.save(post1);
+        postRepository.save(post2);
+        postRepository.save(post3);
+
+        //when
+        Slice<PostSummary> firstPage = postRepository.findFeedOrderByCreatedAt(PageRequest.of(0, 2));
+        PostSummary last = firstPage.getContent().get(firstPage.getNumberOfElements() - 1);
+        Slice<PostSummary> secondPage = postRepository.findFeedAfterCreatedAt(last.getCreatedAt(), last.getId(), PageRequest.of(0, 2));
+
+        //then
+        assertThat(firstPage.getContent()).extracting(PostSummary::getId).containsExactly(post3.getId(), post2.getId());
+        assertThat(firstPage.hasNext()).isTrue();
+        assertThat(secondPage.getContent()).extracting(PostSummary::getId).containsExactly(post1.getId());
+        assertThat(secondPage.hasNext()).isFalse();
+    }
+
+    @Test
+    void findAllSummaryByAccountId_mapsOnlyFeedColumns() {
+        //given
+        Account account = Account.builder().email("chaeppy@sswu.community").password("tempPassword123").nickname("채피").registeredDateTime(LocalDateTime.now()).build();
+        accountRepository.save(account);
+
+        Post post = Post.builder().title("포스트 테스트").content("포스트 테스트 입니다").isAnonymous(true).build();
+        post.setAccount(account);
+        post.setCreatedAt(LocalDateTime.now());
+        postRepository.save(post);
+
+        //when
+        List<PostSummary> posts = postRepository.findAllSummaryByAccountId(account.getId());
+
+        //then
+        assertThat(posts).hasSize(1);
+        PostSummary summary = posts.get(0);
+        assertThat(summary.getTitle()).isEqualTo("포스트 테스트");
+        assertThat(summary.getAnonymous()).isTrue();
+        assertThat(summary.getAccountId()).isEqualTo(account.getId());
+        assertThat(summary.getAccountNickname()).isEqualTo("채피");
+        assertThat(summary.getLikeCount()).isZero();
+    }
+}
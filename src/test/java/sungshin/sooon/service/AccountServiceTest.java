@@ -0,0 +1,130 @@
+package sungshin.sooon.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.config.annotation.authentication.builders.AuthenticationManagerBuilder;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import sungshin.sooon.config.AppConfig;
+import sungshin.sooon.config.BoundedPasswordEncoder;
+import sungshin.sooon.config.TokenProvider;
+import sungshin.sooon.domain.entity.Account;
+import sungshin.sooon.domain.repository.AccountRepository;
+import sungshin.sooon.dto.AccountResponseDto;
+import sungshin.sooon.dto.SignupRequestDto;
+import sungshin.sooon.dto.TokenDto;
+import sungshin.sooon.exception.AlreadyExistsException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.then;
+import static org.mockito.Mockito.never;
+
+@ExtendWith(MockitoExtension.class)
+class AccountServiceTest {
+    private static final String EMAIL = "chaeppy@sswu.community";
+    private static final String NICKNAME = "채피";
+
+    @Mock
+    private AccountRepository accountRepository;
+
+    @Mock
+    private RefreshTokenStore refreshTokenStore;
+
+    @Mock
+    private AuthenticationManagerBuilder authenticationManagerBuilder;
+
+    @Mock
+    private PasswordEncoder passwordEncoder;
+
+    @Mock
+    private TokenProvider tokenProvider;
+
+    @Mock
+    private AccountNameFilter accountNameFilter;
+
+    private AccountService accountService;
+
+    private final SignupRequestDto signupRequestDto = new SignupRequestDto(EMAIL, "password123!", NICKNAME);
+
+    @BeforeEach
+    void setUp() {
+        accountService = new AccountService(accountRepository, refreshTokenStore, authenticationManagerBuilder, passwordEncoder, tokenProvider, accountNameFilter);
+    }
+
+    @Test
+    void signup_checksDatabaseNotFilter() {
+        //given
+        given(passwordEncoder.encode(any())).willReturn("encoded");
+        given(tokenProvider.generateTokenDto(any(Authentication.class))).willReturn(TokenDto.builder().refreshToken("refresh").refreshTokenExpiresIn(0L).build());
+
+        //when
+        AccountResponseDto accountResponseDto = accountService.signup(signupRequestDto);
+
+        //then 가입 판단은 unique 인덱스로만 하고, filter 에는 새 값을 넣기만 한다.
+        assertThat(accountResponseDto.getEmail()).isEqualTo(EMAIL);
+        then(accountRepository).should().existsByEmail(EMAIL);
+        then(accountRepository).should().existsByNickname(NICKNAME);
+        then(accountRepository).should().save(any(Account.class));
+        then(accountNameFilter).should(never()).emailExists(any(), any());
+        then(accountNameFilter).should(never()).nicknameExists(any(), any());
+        then(accountNameFilter).should().add(EMAIL, NICKNAME);
+    }
+
+    @Test
+    void signup_ifEmailExists() {
+        //given
+        given(accountRepository.existsByEmail(EMAIL)).willReturn(true);
+
+        //when then
+        assertThatThrownBy(() -> accountService.signup(signupRequestDto)).isInstanceOf(AlreadyExistsException.class);
+        then(accountRepository).should(never()).save(any());
+    }
+
+    @Test
+    void signup_ifConcurrentSignupWins() {
+        //given 확인은 통과했지만 insert 직전에 같은 이메일로 먼저 가입됐다.
+        given(passwordEncoder.encode(any())).willReturn("encoded");
+        given(accountRepository.save(any(Account.class))).willThrow(new DataIntegrityViolationException("uk_account_email"));
+
+        //when then
+        assertThatThrownBy(() -> accountService.signup(signupRequestDto)).isInstanceOf(AlreadyExistsException.class);
+        then(accountNameFilter).should(never()).add(any(), any());
+    }
+
+    @Test
+    void login_upgradesWeakBcryptHash() {
+        //given 강도 4 로 저장된 해시, 지금 설정은 강도 5
+        BoundedPasswordEncoder boundedPasswordEncoder = new AppConfig().passwordEncoder(new SimpleMeterRegistry(), 5, 1, 4, 5000, 2);
+        Account account = Account.builder().id(1L).email(EMAIL).nickname(NICKNAME)
+                .password("{bcrypt}" + new BCryptPasswordEncoder(4).encode("password123!")).build();
+        given(accountRepository.findByEmail(EMAIL)).willReturn(account);
+        AccountService loginService = new AccountService(accountRepository, refreshTokenStore, authenticationManagerBuilder, boundedPasswordEncoder, tokenProvider, accountNameFilter);
+        DaoAuthenticationProvider provider = new DaoAuthenticationProvider();
+        provider.setPasswordEncoder(boundedPasswordEncoder);
+        provider.setUserDetailsService(loginService);
+        provider.setUserDetailsPasswordService(loginService);
+
+        try {
+            //when
+            provider.authenticate(new UsernamePasswordAuthenticationToken(EMAIL, "password123!"));
+
+            //then updatePassword 로 새 강도의 {bcrypt} 해시가 저장되고, 그 해시로도 로그인된다.
+            assertThat(account.getPassword()).startsWith("{bcrypt}$2a$05$");
+            assertThat(boundedPasswordEncoder.matches("password123!", account.getPassword())).isTrue();
+            assertThat(boundedPasswordEncoder.upgradeEncoding(account.getPassword())).isFalse();
+        } finally {
+            boundedPasswordEncoder.shutdown();
+        }
+    }
+}
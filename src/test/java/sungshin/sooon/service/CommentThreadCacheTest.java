@@ -0,0 +1,175 @@
+package sungshin.sooon.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import sungshin.sooon.dto.CommentResponseDto;
+import sungshin.sooon.dto.PageCursor;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongFunction;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CommentThreadCacheTest {
+    private static final LocalDateTime BASE = LocalDateTime.of(2021, 6, 1, 12, 0, 0);
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final Map<Long, List<CommentResponseDto>> db = new HashMap<>(); // postId -> 댓글 (오래된 순)
+    private final Map<Long, Integer> loads = new HashMap<>();
+
+    @Test
+    void findComments_slicesFromCursor() {
+        //given
+        CommentThreadCache cache = new CommentThreadCache(meterRegistry, 10, 16777216, 60000);
+        saveComments(1L, 5);
+
+        //when
+        List<CommentResponseDto> first = cache.findComments(1L, null, 3, loader(cache));
+        List<CommentResponseDto> next = cache.findComments(1L, cursorOf(first.get(2)), 3, loader(cache));
+
+        //then 두 번째 페이지는 DB 를 읽지 않는다.
+        assertThat(first).extracting(CommentResponseDto::getId).containsExactly(1L, 2L, 3L);
+        assertThat(next).extracting(CommentResponseDto::getId).containsExactly(4L, 5L);
+        assertThat(loads.get(1L)).isEqualTo(1);
+        assertThat(meterRegistry.counter("comment.thread.cache.requests", "result", "hit").count()).isEqualTo(1);
+    }
+
+    @Test
+    void findComments_returnsNullBeyondCachedRange() {
+        //given 앞쪽 3개만 들고 있다.
+        CommentThreadCache cache = new CommentThreadCache(meterRegistry, 3, 16777216, 60000);
+        saveComments(1L, 6);
+
+        //when
+        List<CommentResponseDto> first = cache.findComments(1L, null, 3, loader(cache));
+        List<CommentResponseDto> beyond = cache.findComments(1L, cursorOf(first.get(1)), 3, loader(cache));
+
+        //then
+        assertThat(first).extracting(CommentResponseDto::getId).containsExactly(1L, 2L, 3L);
+        assertThat(beyond).isNull();
+    }
+
+    @Test
+    void addedAfterCommit_atEndOfCompleteThread() {
+        //given 댓글 2개, 최대 3개
+        CommentThreadCache cache = new CommentThreadCache(meterRegistry, 3, 16777216, 60000);
+        saveComments(1L, 2);
+        cache.findComments(1L, null, 4, loader(cache));
+
+        //when 트랜잭션 밖이라 바로 반영된다.
+        cache.addedAfterCommit(1L, comment(3L));
+
+        //then 다시 읽지 않고 새 댓글까지 보인다.
+        assertThat(cache.findComments(1L, null, 4, loader(cache))).extracting(CommentResponseDto::getId).containsExactly(1L, 2L, 3L);
+
+        //when 최대 개수를 넘는 댓글은 들고 있지 않고, 그 뒤 페이지는 DB 에 맡긴다.
+        cache.addedAfterCommit(1L, comment(4L));
+
+        //then
+        assertThat(cache.findComments(1L, null, 3, loader(cache))).extracting(CommentResponseDto::getId).containsExactly(1L, 2L, 3L);
+        assertThat(cache.findComments(1L, cursorOf(comment(2L)), 3, loader(cache))).isNull();
+        assertThat(loads.get(1L)).isEqualTo(1);
+    }
+
+    @Test
+    void addedAfterCommit_ignoresCommentBeyondPartialThread() {
+        //given 앞쪽 3개만 들고 있다.
+        CommentThreadCache cache = new CommentThreadCache(meterRegistry, 3, 16777216, 60000);
+        saveComments(1L, 5);
+        cache.findComments(1L, null, 3, loader(cache));
+
+        //when
+        cache.addedAfterCommit(1L, comment(6L));
+
+        //then
+        assertThat(cache.findComments(1L, cursorOf(comment(1L)), 2, loader(cache))).extracting(CommentResponseDto::getId).containsExactly(2L, 3L);
+        assertThat(cache.findComments(1L, cursorOf(comment(3L)), 1, loader(cache))).isNull();
+    }
+
+    @Test
+    void updatedAndDeletedAfterCommit_writeThrough() {
+        //given
+        CommentThreadCache cache = new CommentThreadCache(meterRegistry, 10, 16777216, 60000);
+        saveComments(1L, 3);
+        cache.findComments(1L, null, 10, loader(cache));
+
+        //when 첫 댓글과 마지막 댓글
+        CommentResponseDto edited = comment(1L);
+        edited.setComment("수정한 댓글");
+        cache.updatedAfterCommit(1L, edited);
+        cache.deletedAfterCommit(1L, 3L);
+
+        //then
+        List<CommentResponseDto> comments = cache.findComments(1L, null, 10, loader(cache));
+        assertThat(comments).extracting(CommentResponseDto::getId).containsExactly(1L, 2L);
+        assertThat(comments.get(0).getComment()).isEqualTo("수정한 댓글");
+        assertThat(loads.get(1L)).isEqualTo(1);
+    }
+
+    @Test
+    void put_evictsLeastRecentlyReadThread() {
+        //given 댓글 하나(136 bytes)짜리 글 두 개까지만 들어간다.
+        CommentThreadCache cache = new CommentThreadCache(meterRegistry, 10, 300, 60000);
+        saveComments(1L, 1);
+        saveComments(2L, 1);
+        saveComments(3L, 1);
+        cache.findComments(1L, null, 10, loader(cache));
+        cache.findComments(2L, null, 10, loader(cache));
+        cache.findComments(1L, null, 10, loader(cache)); // 1번을 다시 읽어서 2번이 가장 오래 안 읽힌 글이 된다.
+
+        //when
+        cache.findComments(3L, null, 10, loader(cache));
+
+        //then
+        assertThat(cache.size()).isEqualTo(2);
+        cache.findComments(1L, null, 10, loader(cache));
+        assertThat(loads.get(1L)).isEqualTo(1);
+        cache.findComments(2L, null, 10, loader(cache));
+        assertThat(loads.get(2L)).isEqualTo(2);
+    }
+
+    @Test
+    void findComments_reloadsAfterTtl() {
+        //given ttl 0 이면 매번 만료
+        CommentThreadCache expiring = new CommentThreadCache(meterRegistry, 10, 16777216, 0);
+        saveComments(1L, 2);
+        expiring.findComments(1L, null, 10, loader(expiring));
+
+        //when 다른 서버에서 댓글이 달렸다. (이 서버의 캐시는 모른다)
+        db.get(1L).add(comment(3L));
+        List<CommentResponseDto> comments = expiring.findComments(1L, null, 10, loader(expiring));
+
+        //then
+        assertThat(comments).extracting(CommentResponseDto::getId).containsExactly(1L, 2L, 3L);
+        assertThat(loads.get(1L)).isEqualTo(2);
+    }
+
+    // PostCommentService.findThreadHead 처럼 앞쪽 maxCommentsPerThread + 1 개를 읽는다.
+    private LongFunction<List<CommentResponseDto>> loader(CommentThreadCache cache) {
+        return postId -> {
+            loads.merge(postId, 1, Integer::sum);
+            List<CommentResponseDto> comments = db.getOrDefault(postId, List.of());
+            return new ArrayList<>(comments.subList(0, Math.min(comments.size(), cache.getMaxCommentsPerThread() + 1)));
+        };
+    }
+
+    private void saveComments(long postId, int count) {
+        List<CommentResponseDto> comments = new ArrayList<>();
+        for (long id = 1; id <= count; id++) {
+            comments.add(comment(id));
+        }
+        db.put(postId, comments);
+    }
+
+    private static CommentResponseDto comment(long id) {
+        return CommentResponseDto.builder().id(id).comment("댓글").accountNickname("채피").createdAt(BASE.plusMinutes(id)).build();
+    }
+
+    private static PageCursor cursorOf(CommentResponseDto comment) {
+        return PageCursor.of(comment.getCreatedAt(), comment.getId());
+    }
+}
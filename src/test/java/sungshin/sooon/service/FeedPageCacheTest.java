@@ -0,0 +1,99 @@
+package sungshin.sooon.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import sungshin.sooon.dto.PagingPostResponseDto;
+import sungshin.sooon.dto.PostResponseDto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class FeedPageCacheTest {
+
+    // 스프링 부트가 만드는 것과 같은 설정 (JavaTimeModule, 날짜는 문자열)
+    private final ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+
+    private FeedPageCache feedPageCache;
+
+    @BeforeEach
+    void setUp() {
+        feedPageCache = new FeedPageCache(objectMapper, new SimpleMeterRegistry(), 3, 2, 4194304, 1000);
+    }
+
+    @Test
+    void get_splicedJsonEqualsJacksonSerialization() throws Exception {
+        //when 1번 글만 좋아요
+        byte[] body = feedPageCache.get("createdAt", 0, () -> page(null), postIds -> Set.of(1L));
+
+        //then likedByMe 를 채운 DTO 를 Jackson 으로 직렬화한 것과 같은 JSON 이다.
+        PagingPostResponseDto expected = page(null);
+        expected.getPosts().get(0).setLikedByMe(true);
+        expected.getPosts().get(1).setLikedByMe(false);
+        assertThat(objectMapper.readTree(body)).isEqualTo(objectMapper.valueToTree(expected));
+    }
+
+    @Test
+    void get_cacheHitRendersPerUserLikedByMe() throws Exception {
+        //given
+        AtomicInteger loads = new AtomicInteger();
+        feedPageCache.get("createdAt", 0, () -> {
+            loads.incrementAndGet();
+            return page(null);
+        }, postIds -> Set.of());
+
+        //when 다른 사용자가 같은 페이지를 조회
+        byte[] body = feedPageCache.get("createdAt", 0, () -> {
+            loads.incrementAndGet();
+            return page(null);
+        }, postIds -> Set.of(2L));
+
+        //then
+        assertThat(loads).hasValue(1);
+        JsonNode posts = objectMapper.readTree(body).get("posts");
+        assertThat(posts.get(0).get("likedByMe").booleanValue()).isFalse();
+        assertThat(posts.get(1).get("likedByMe").booleanValue()).isTrue();
+        assertThat(posts.get(1).get("accountNickname").textValue()).isEqualTo("채피");
+    }
+
+    @Test
+    void get_emptyPageKeepsEnvelope() throws Exception {
+        //given
+        PagingPostResponseDto empty = PagingPostResponseDto.builder().currentPage(0).currentSize(0).hasNextPage(false).posts(List.of()).build();
+
+        //when
+        byte[] body = feedPageCache.get("createdAt", 0, () -> empty, postIds -> Set.of());
+
+        //then
+        assertThat(objectMapper.readTree(body)).isEqualTo(objectMapper.valueToTree(empty));
+    }
+
+    @Test
+    void get_rejectsPostsWithLikedByMe() {
+        assertThatThrownBy(() -> feedPageCache.get("createdAt", 0, () -> page(true), postIds -> Set.of()))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    private static PagingPostResponseDto page(Boolean likedByMe) {
+        LocalDateTime createdAt = LocalDateTime.of(2021, 6, 1, 12, 0, 0);
+        return PagingPostResponseDto.builder()
+                .currentPage(0)
+                .currentSize(2)
+                .hasNextPage(true)
+                .posts(List.of(
+                        PostResponseDto.builder().id(1L).title("학식 \"메뉴\"").content("돈까스 }").anonymous(true).likesCount(3).commentsCount(1)
+                                .createdAt(createdAt).accountId(7L).accountNickname("익명").likedByMe(likedByMe).build(),
+                        PostResponseDto.builder().id(2L).title("도서관").content("자리 있나요").anonymous(false).likesCount(0).commentsCount(0)
+                                .createdAt(createdAt.minusHours(1)).accountId(8L).accountNickname("채피").build()))
+                .nextCursor("abc")
+                .build();
+    }
+}
@@ -0,0 +1,148 @@
+package sungshin.sooon.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import sungshin.sooon.domain.repository.ImageVariantRepository;
+import sungshin.sooon.dto.ImageVariantResponseDto;
+import sungshin.sooon.util.LocalImageStorage;
+import sungshin.sooon.util.StoredImage;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class ImageVariantPipelineTest {
+
+    @Mock
+    private ImageVariantRepository imageVariantRepository;
+
+    @Mock
+    private FeedPageCache feedPageCache;
+
+    @TempDir
+    Path tempDir;
+
+    private LocalImageStorage localImageStorage;
+    private ImageVariantPipeline imageVariantPipeline;
+
+    @BeforeEach
+    void setUp() {
+        localImageStorage = new LocalImageStorage(tempDir.toString(), "/images", 1048576);
+        imageVariantPipeline = new ImageVariantPipeline(localImageStorage, imageVariantRepository, feedPageCache, new SimpleMeterRegistry(), new int[]{160, 480, 1080}, 1_000_000, 1, 10, 600000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        imageVariantPipeline.shutdown();
+    }
+
+    @Test
+    void variantKey_appendsWidthBeforeExtension() {
+        assertThat(ImageVariantPipeline.variantKey("static/abc.JPG", 480, "jpg")).isEqualTo("static/abc_w480.jpg");
+        assertThat(ImageVariantPipeline.variantKey("static.d/abc", 160, "png")).isEqualTo("static.d/abc_w160.png");
+    }
+
+    @Test
+    void submit_createsVariantsSmallerThanOriginal() throws Exception {
+        //given 가로 600 인 원본
+        Path original = tempDir.resolve("static/cat.png");
+        Files.createDirectories(original.getParent());
+        ImageIO.write(new BufferedImage(600, 300, BufferedImage.TYPE_INT_RGB), "png", original.toFile());
+
+        //when
+        imageVariantPipeline.submit(new StoredImage("static/cat.png", "/images/static/cat.png"));
+        ImageVariantResponseDto progress = awaitFinished("/images/static/cat.png");
+
+        //then 원본보다 작은 160, 480 만 만든다.
+        assertThat(progress.getStatus()).isEqualTo("DONE");
+        assertThat(progress.getVariants()).containsOnlyKeys(160, 480);
+        BufferedImage small = ImageIO.read(localImageStorage.resolve("static/cat_w160.jpg").toFile());
+        assertThat(small.getWidth()).isEqualTo(160);
+        assertThat(small.getHeight()).isEqualTo(80);
+        verify(imageVariantRepository, times(2)).save(any());
+        verify(feedPageCache).invalidate(); // 캐시된 피드에도 축소본이 보이도록
+    }
+
+    @Test
+    void submit_convertsIndexedImageEvenWhenWidthAlreadyMatches() throws Exception {
+        //given 팔레트(indexed) png. 1/2 로 줄여 읽으면 가로가 목표 폭 480 과 같아진다.
+        Path original = tempDir.resolve("static/palette.png");
+        Files.createDirectories(original.getParent());
+        ImageIO.write(new BufferedImage(960, 200, BufferedImage.TYPE_BYTE_INDEXED), "png", original.toFile());
+        ImageVariantPipeline pipeline = new ImageVariantPipeline(localImageStorage, imageVariantRepository, feedPageCache, new SimpleMeterRegistry(), new int[]{480}, 1_000_000, 1, 10, 600000);
+
+        try {
+            //when
+            pipeline.submit(new StoredImage("static/palette.png", "/images/static/palette.png"));
+            ImageVariantResponseDto progress = awaitFinished(pipeline, "/images/static/palette.png");
+
+            //then RGB jpg 로 저장된다.
+            assertThat(progress.getStatus()).isEqualTo("DONE");
+            BufferedImage variant = ImageIO.read(localImageStorage.resolve("static/palette_w480.jpg").toFile());
+            assertThat(variant.getWidth()).isEqualTo(480);
+            assertThat(variant.getHeight()).isEqualTo(100);
+            assertThat(variant.getColorModel().getNumColorComponents()).isEqualTo(3);
+        } finally {
+            pipeline.shutdown();
+        }
+    }
+
+    @Test
+    void submit_skipsUnreadableImage() throws Exception {
+        //given
+        Path original = tempDir.resolve("static/photo.heic");
+        Files.createDirectories(original.getParent());
+        Files.write(original, "not an image".getBytes());
+
+        //when
+        imageVariantPipeline.submit(new StoredImage("static/photo.heic", "/images/static/photo.heic"));
+
+        //then
+        assertThat(awaitFinished("/images/static/photo.heic").getStatus()).isEqualTo("SKIPPED");
+        verify(feedPageCache, never()).invalidate();
+    }
+
+    @Test
+    void submit_skipsImageOverPixelBudget() throws Exception {
+        //given 가로는 보통이지만 세로가 길어 화소 수(1200 x 1000)가 한도(1,000,000)를 넘는다.
+        Path original = tempDir.resolve("static/long.png");
+        Files.createDirectories(original.getParent());
+        ImageIO.write(new BufferedImage(1200, 1000, BufferedImage.TYPE_INT_RGB), "png", original.toFile());
+
+        //when
+        imageVariantPipeline.submit(new StoredImage("static/long.png", "/images/static/long.png"));
+
+        //then 디코딩하지 않고 원본만 쓴다.
+        assertThat(awaitFinished("/images/static/long.png").getStatus()).isEqualTo("SKIPPED");
+        verify(imageVariantRepository, never()).save(any());
+    }
+
+    private ImageVariantResponseDto awaitFinished(String originalUrl) throws InterruptedException {
+        return awaitFinished(imageVariantPipeline, originalUrl);
+    }
+
+    private static ImageVariantResponseDto awaitFinished(ImageVariantPipeline pipeline, String originalUrl) throws InterruptedException {
+        for (int i = 0; i < 200; i++) {
+            ImageVariantResponseDto progress = pipeline.findProgress(originalUrl);
+            if (!progress.getStatus().equals("QUEUED") && !progress.getStatus().equals("RUNNING")) {
+                return progress;
+            }
+            Thread.sleep(25);
+        }
+        throw new AssertionError("축소본 작업이 끝나지 않았습니다: " + originalUrl);
+    }
+}
@@ -0,0 +1,154 @@
+package sungshin.sooon.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import sungshin.sooon.domain.entity.Account;
+import sungshin.sooon.domain.entity.Post;
+import sungshin.sooon.domain.repository.AccountRepository;
+import sungshin.sooon.domain.repository.PostRepository;
+import sungshin.sooon.dto.CommentRequestDto;
+import sungshin.sooon.exception.NotFoundException;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/*
+    익명 번호 발급은 글 행 잠금(select ... for update)과 anonymous_seq 증가, post_anonymous_alias 유니크 인덱스에 기대고 있어서
+    mock 대신 실제 DB(H2)에 대고 확인한다.
+ */
+@DataJpaTest
+@Import(PostCommentService.class)
+class PostCommentServiceTest {
+
+    @Autowired
+    private PostCommentService postCommentService;
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @MockBean
+    private FeedPageCache feedPageCache;
+
+    @MockBean
+    private TrendingPostRanking trendingPostRanking;
+
+    @MockBean
+    private CommentThreadCache commentThreadCache;
+
+    private Account author;
+    private Account first;
+    private Account second;
+    private Post post;
+
+    @BeforeEach
+    void setUp() {
+        author = saveAccount("author@sswu.community", "글쓴이");
+        first = saveAccount("first@sswu.community", "첫째");
+        second = saveAccount("second@sswu.community", "둘째");
+
+        post = Post.builder().title("포스트 테스트").content("포스트 테스트 입니다").isAnonymous(true).build();
+        post.setAccount(author);
+        post.setCreatedAt(LocalDateTime.now());
+        postRepository.save(post);
+    }
+
+    @Test
+    void save_firstTimeCommentersGetDistinctNumbers() {
+        //when
+        long firstNum = anonymousComment(first);
+        long secondNum = anonymousComment(second);
+
+        //then
+        assertThat(firstNum).isEqualTo(1);
+        assertThat(secondNum).isEqualTo(2);
+        assertThat(anonymousSeq()).isEqualTo(2);
+    }
+
+    @Test
+    void save_returningCommenterReusesNumber() {
+        //given
+        anonymousComment(first);
+        anonymousComment(second);
+
+        //when
+        long again = anonymousComment(first);
+
+        //then 번호를 새로 발급하지 않는다.
+        assertThat(again).isEqualTo(1);
+        assertThat(anonymousSeq()).isEqualTo(2);
+        assertThat(aliasRows()).isEqualTo(2);
+    }
+
+    @Test
+    void save_postAuthorGetsOrdinaryNumber() {
+        //when
+        long firstNum = anonymousComment(first);
+        long authorNum = anonymousComment(author);
+        long authorAgain = anonymousComment(author);
+
+        //then 글쓴이도 다른 사람과 똑같이 번호를 받는다. (익명 글타래에서 글쓴이가 드러나지 않는다)
+        assertThat(firstNum).isEqualTo(1);
+        assertThat(authorNum).isEqualTo(2);
+        assertThat(authorAgain).isEqualTo(2);
+        assertThat(aliasRows()).isEqualTo(2);
+    }
+
+    @Test
+    void save_incrementsCommentCount() {
+        //when
+        anonymousComment(first);
+        postCommentService.save(second, post.getId(), new CommentRequestDto("닉네임 댓글", false));
+
+        //then
+        assertThat(jdbcTemplate.queryForObject("select comment_count from post where post_id = ?", Long.class, post.getId())).isEqualTo(2);
+    }
+
+    @Test
+    void save_ifPostDoesNotExists() {
+        assertThatThrownBy(() -> postCommentService.save(first, post.getId() + 1000, new CommentRequestDto("댓글", false)))
+                .isInstanceOf(NotFoundException.class).hasMessageContaining("게시글이 존재하지 않습니다.");
+    }
+
+    @Test
+    void update_toAnonymousReusesNumber() {
+        //given 닉네임으로 먼저 댓글을 달고, 다른 댓글은 익명으로 달았다.
+        long commentId = postCommentService.save(first, post.getId(), new CommentRequestDto("닉네임 댓글", false)).getId();
+        anonymousComment(first);
+
+        //when
+        long updatedNum = postCommentService.update(first, post.getId(), commentId, new CommentRequestDto("익명으로 수정", true)).getAnonymousNum();
+
+        //then
+        assertThat(updatedNum).isEqualTo(1);
+        assertThat(anonymousSeq()).isEqualTo(1);
+    }
+
+    private long anonymousComment(Account account) {
+        return postCommentService.save(account, post.getId(), new CommentRequestDto("익명 댓글", true)).getAnonymousNum();
+    }
+
+    private Account saveAccount(String email, String nickname) {
+        return accountRepository.save(Account.builder().email(email).password("tempPassword123").nickname(nickname).registeredDateTime(LocalDateTime.now()).build());
+    }
+
+    private long anonymousSeq() {
+        return jdbcTemplate.queryForObject("select anonymous_seq from post where post_id = ?", Long.class, post.getId());
+    }
+
+    private long aliasRows() {
+        return jdbcTemplate.queryForObject("select count(1) from post_anonymous_alias where post_id = ?", Long.class, post.getId());
+    }
+}
@@ -0,0 +1,122 @@
+package sungshin.sooon.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import sungshin.sooon.domain.entity.Account;
+import sungshin.sooon.domain.entity.Post;
+import sungshin.sooon.domain.repository.AccountRepository;
+import sungshin.sooon.domain.repository.PostRepository;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/*
+    PostLikeBuffer 의 JDBC 배치를 실제 DB(H2)에 실행해 본다. (insert ... where not exists 중복 제거, 없는 글 무시, like_count 증감)
+    버퍼가 자기 트랜잭션을 커밋해야 afterCommit 이 돌기 때문에 테스트 트랜잭션은 쓰지 않고 직접 지운다.
+ */
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class PostLikeBufferFlushTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private PostRepository postRepository;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    private final PostLikeIndex postLikeIndex = mock(PostLikeIndex.class);
+
+    private PostLikeBuffer postLikeBuffer;
+    private Account account;
+    private Post post;
+
+    @BeforeEach
+    void setUp() {
+        postLikeBuffer = new PostLikeBuffer(jdbcTemplate, transactionManager, mock(FeedPageCache.class), mock(TrendingPostRanking.class), postLikeIndex, new SimpleMeterRegistry(), 100, 1000);
+
+        account = accountRepository.save(Account.builder().email("chaeppy@sswu.community").password("tempPassword123").nickname("채피").registeredDateTime(LocalDateTime.now()).build());
+        post = Post.builder().title("포스트 테스트").content("포스트 테스트 입니다").isAnonymous(false).build();
+        post.setAccount(account);
+        post.setCreatedAt(LocalDateTime.now());
+        post = postRepository.save(post);
+    }
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("delete from post_like");
+        postRepository.deleteAll();
+        accountRepository.deleteAll();
+    }
+
+    @Test
+    void flush_insertsLikeOnlyOnce() {
+        //given 이미 반영된 좋아요가 (다른 인스턴스 등에서) 한 번 더 들어온다.
+        postLikeBuffer.like(account.getId(), post.getId());
+        postLikeBuffer.flush();
+        postLikeBuffer.like(account.getId(), post.getId());
+
+        //when
+        postLikeBuffer.flush();
+
+        //then
+        assertThat(likeRows()).isEqualTo(1);
+        assertThat(likeCount()).isEqualTo(1);
+        verify(postLikeIndex, times(2)).update(post.getId(), account.getId(), true); // 커밋 후 비트맵 반영
+    }
+
+    @Test
+    void flush_unlikeDeletesAndDecrements() {
+        //given
+        postLikeBuffer.like(account.getId(), post.getId());
+        postLikeBuffer.flush();
+
+        //when 없는 좋아요 취소는 0건이라 카운트가 음수가 되지 않는다.
+        postLikeBuffer.unlike(account.getId(), post.getId());
+        postLikeBuffer.flush();
+        postLikeBuffer.unlike(account.getId(), post.getId());
+        postLikeBuffer.flush();
+
+        //then
+        assertThat(likeRows()).isZero();
+        assertThat(likeCount()).isZero();
+    }
+
+    @Test
+    void flush_ignoresDeletedPost() {
+        //given 요청 뒤에 글이 지워졌다.
+        postLikeBuffer.like(account.getId(), post.getId() + 1000);
+
+        //when
+        postLikeBuffer.flush();
+
+        //then
+        assertThat(likeRows()).isZero();
+        assertThat(postLikeBuffer.findPendingState(account.getId(), post.getId() + 1000)).isNull();
+    }
+
+    private long likeRows() {
+        return jdbcTemplate.queryForObject("select count(1) from post_like", Long.class);
+    }
+
+    private long likeCount() {
+        return jdbcTemplate.queryForObject("select like_count from post where post_id = ?", Long.class, post.getId());
+    }
+}
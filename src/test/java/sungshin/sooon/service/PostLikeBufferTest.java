@@ -0,0 +1,185 @@
+package sungshin.sooon.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.sql.Statement;
+import java.util.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+
+/*
+    트랜잭션 매니저가 mock 이라 트랜잭션 동기화가 없다. afterCommit 작업(비트맵, 랭킹 반영)은 write 안에서 바로 실행된다.
+    JDBC 배치는 SQL 종류별로 기록하고, insert 는 "이미 있으면 0건" 을 메모리의 likes 로 흉내 낸다.
+ */
+@ExtendWith(MockitoExtension.class)
+class PostLikeBufferTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    @Mock
+    private FeedPageCache feedPageCache;
+
+    @Mock
+    private TrendingPostRanking trendingPostRanking;
+
+    @Mock
+    private PostLikeIndex postLikeIndex;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final Set<List<Long>> likes = new HashSet<>();        // DB 의 (account, post)
+    private final Map<String, List<List<Object[]>>> batches = new HashMap<>(); // SQL 앞부분 -> 실행된 배치들
+    private boolean noInfo; // 드라이버가 SUCCESS_NO_INFO 만 돌려주는 경우
+    private Runnable beforeInsert = () -> {
+    };
+
+    private PostLikeBuffer postLikeBuffer;
+
+    @BeforeEach
+    void setUp() {
+        postLikeBuffer = new PostLikeBuffer(jdbcTemplate, transactionManager, feedPageCache, trendingPostRanking, postLikeIndex, meterRegistry, 100, 2);
+    }
+
+    @Test
+    void flush_appliesNetCountPerPost() {
+        //given (2, 10) 은 이미 DB 에 있다.
+        stubBatchUpdate();
+        likes.add(List.of(2L, 10L));
+        postLikeBuffer.like(1L, 10L);
+        postLikeBuffer.like(2L, 10L);
+        postLikeBuffer.like(1L, 11L);
+        postLikeBuffer.like(4L, 10L);
+        postLikeBuffer.unlike(4L, 10L); // 좋아요 후 바로 취소 -> 취소 하나로 합쳐진다.
+
+        //when
+        postLikeBuffer.flush();
+
+        //then 실제로 들어간 행만큼만 글마다 한 번씩 증가
+        assertThat(likes).containsExactlyInAnyOrder(List.of(1L, 10L), List.of(2L, 10L), List.of(1L, 11L));
+        assertThat(rows("add")).containsExactlyInAnyOrder(List.of(1L, 10L), List.of(1L, 11L));
+        assertThat(rows("recount")).isEmpty();
+        verify(trendingPostRanking).likeChangedAfterCommit(10L, 1);
+        verify(trendingPostRanking).likeChangedAfterCommit(11L, 1);
+        verify(postLikeIndex).update(10L, 4L, false);
+        assertThat(meterRegistry.counter("post.like.buffer.ops", "result", "deduped").count()).isEqualTo(1);
+        assertThat(meterRegistry.counter("post.like.buffer.ops", "result", "noop").count()).isEqualTo(2); // 이미 있던 좋아요, 없는 좋아요 취소
+    }
+
+    @Test
+    void flush_recountsWhenDriverReportsNoInfo() {
+        //given
+        stubBatchUpdate();
+        noInfo = true;
+        postLikeBuffer.like(1L, 10L);
+
+        //when
+        postLikeBuffer.flush();
+
+        //then 증감값을 모르므로 더하지 않고 다시 센다.
+        assertThat(rows("add")).isEmpty();
+        assertThat(rows("recount")).containsExactly(List.of(10L, 10L));
+        verify(feedPageCache).counterChangedAfterCommit();
+    }
+
+    @Test
+    void findPendingState_keepsDrainedStateUntilIndexUpdated() {
+        //given
+        stubBatchUpdate();
+        postLikeBuffer.like(1L, 10L);
+        Boolean[] stateDuringWrite = new Boolean[1];
+        beforeInsert = () -> stateDuringWrite[0] = postLikeBuffer.findPendingState(1L, 10L);
+
+        //when
+        postLikeBuffer.flush();
+
+        //then 배치를 쓰는 동안(비트맵 반영 전)에도 좋아요 상태로 보이고, 반영이 끝나면 비트맵에 맡긴다.
+        assertThat(stateDuringWrite[0]).isTrue();
+        verify(postLikeIndex).update(10L, 1L, true);
+        assertThat(postLikeBuffer.findPendingState(1L, 10L)).isNull();
+    }
+
+    @Test
+    void drainOnShutdown_flushesAllBatches() {
+        //given batch-size 2 인데 5건
+        stubBatchUpdate();
+        for (long accountId = 1; accountId <= 5; accountId++) {
+            postLikeBuffer.like(accountId, 10L);
+        }
+
+        //when
+        postLikeBuffer.drainOnShutdown();
+
+        //then
+        assertThat(batches.get("insert")).hasSize(3);
+        assertThat(likes).hasSize(5);
+        for (long accountId = 1; accountId <= 5; accountId++) {
+            assertThat(postLikeBuffer.findPendingState(accountId, 10L)).isNull();
+        }
+    }
+
+    @Test
+    void flush_withoutPendingDoesNothing() {
+        //when
+        postLikeBuffer.flush();
+
+        //then
+        verifyNoInteractions(jdbcTemplate, transactionManager);
+    }
+
+    private void stubBatchUpdate() {
+        given(jdbcTemplate.batchUpdate(anyString(), anyList()))
+                .willAnswer(invocation -> record(invocation.getArgument(0), invocation.getArgument(1)));
+    }
+
+    private int[] record(String sql, List<Object[]> args) {
+        String kind = sql.startsWith("insert") ? "insert" : sql.startsWith("delete") ? "delete" : sql.contains("count(1)") ? "recount" : "add";
+        if (kind.equals("insert")) {
+            beforeInsert.run();
+        }
+        batches.computeIfAbsent(kind, key -> new ArrayList<>()).add(args);
+
+        int[] results = new int[args.size()];
+        for (int i = 0; i < args.size(); i++) {
+            Object[] row = args.get(i);
+            if (kind.equals("insert")) {
+                results[i] = likes.add(List.of((Long) row[0], (Long) row[1])) ? 1 : 0; // insert ... where not exists
+            } else if (kind.equals("delete")) {
+                results[i] = likes.remove(List.of((Long) row[1], (Long) row[0])) ? 1 : 0;
+            } else {
+                results[i] = 1;
+            }
+            if (noInfo) {
+                results[i] = Statement.SUCCESS_NO_INFO;
+            }
+        }
+        return results;
+    }
+
+    // 해당 종류(insert, delete, add, recount)의 SQL 로 실행된 모든 행. 값은 long 으로 맞춘다.
+    private List<List<Long>> rows(String kind) {
+        List<List<Long>> rows = new ArrayList<>();
+        batches.getOrDefault(kind, List.of()).forEach(batch -> batch.forEach(row -> {
+            List<Long> values = new ArrayList<>();
+            for (Object value : row) {
+                values.add(((Number) value).longValue());
+            }
+            rows.add(values);
+        }));
+        return rows;
+    }
+}
@@ -0,0 +1,158 @@
+package sungshin.sooon.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import sungshin.sooon.domain.repository.PostRepository;
+import sungshin.sooon.domain.repository.PostSearchSource;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.then;
+
+@ExtendWith(MockitoExtension.class)
+class PostSearchIndexTest {
+
+    @Mock
+    private PostRepository postRepository;
+
+    @TempDir
+    Path tempDir;
+
+    private PostSearchIndex postSearchIndex;
+
+    @BeforeEach
+    void setUp() {
+        postSearchIndex = new PostSearchIndex(postRepository, new SimpleMeterRegistry(), tempDir.resolve("index.snapshot").toString(), 86400000, 1000);
+        // 트랜잭션 밖이라 바로 색인된다.
+        postSearchIndex.indexAfterCommit(1L, "오늘 학식 메뉴", "돈까스가 나왔어요");
+        postSearchIndex.indexAfterCommit(2L, "도서관 자리", "학식 먹고 도서관 가실 분");
+        postSearchIndex.indexAfterCommit(3L, "중고 거래", "전공책 팝니다");
+    }
+
+    @Test
+    void tokenize_splitsIntoBigrams() {
+        assertThat(PostSearchIndex.tokenize("학식메뉴, 밥!")).containsExactly("학식", "식메", "메뉴", "밥");
+    }
+
+    @Test
+    void search_ranksTitleMatchFirst() {
+        //when
+        List<PostSearchIndex.Hit> hits = postSearchIndex.search("학식", 10);
+
+        //then 제목에 있는 글이 본문에만 있는 글보다 앞선다.
+        assertThat(hits).extracting(PostSearchIndex.Hit::getPostId).containsExactly(1L, 2L);
+    }
+
+    @Test
+    void searchAfter_returnsNextPage() {
+        //given
+        PostSearchIndex.Hit first = postSearchIndex.search("학식", 1).get(0);
+
+        //when
+        List<PostSearchIndex.Hit> hits = postSearchIndex.searchAfter("학식", first.getScore(), first.getPostId(), 10);
+
+        //then
+        assertThat(hits).extracting(PostSearchIndex.Hit::getPostId).containsExactly(2L);
+    }
+
+    @Test
+    void search_afterRemoveAndUpdate() {
+        //when
+        postSearchIndex.removeAfterCommit(1L);
+        postSearchIndex.indexAfterCommit(3L, "학식 쿠폰 거래", "학식 쿠폰 팝니다");
+
+        //then
+        assertThat(postSearchIndex.search("학식", 10)).extracting(PostSearchIndex.Hit::getPostId).containsExactly(3L, 2L);
+        assertThat(postSearchIndex.search("전공책", 10)).isEmpty();
+    }
+
+    @Test
+    void writeSnapshot_thenLoad_restoresIndex() {
+        //given
+        postSearchIndex.writeSnapshot();
+        PostSearchIndex restored = new PostSearchIndex(postRepository, new SimpleMeterRegistry(), tempDir.resolve("index.snapshot").toString(), 86400000, 1000);
+
+        //when DB 에는 스냅샷과 같은 글만 있다.
+        given(postRepository.findIdsAfterId(eq(0L), any())).willReturn(List.of(1L, 2L, 3L));
+        given(postRepository.findSearchSourcesAfterId(eq(3L), any())).willReturn(List.of());
+        restored.load();
+
+        //then
+        assertThat(restored.size()).isEqualTo(3);
+        assertThat(restored.search("학식", 10)).extracting(PostSearchIndex.Hit::getPostId).containsExactly(1L, 2L);
+    }
+
+    @Test
+    void load_fromSnapshot_reindexesModifiedAndDropsDeletedPosts() {
+        //given 스냅샷 이후 2번은 삭제, 3번은 다른 서버에서 수정, 4번은 새로 작성됐다.
+        postSearchIndex.writeSnapshot();
+        PostSearchIndex restored = new PostSearchIndex(postRepository, new SimpleMeterRegistry(), tempDir.resolve("index.snapshot").toString(), 86400000, 1000);
+        given(postRepository.findIdsAfterId(eq(0L), any())).willReturn(List.of(1L, 3L, 4L));
+        given(postRepository.findSearchSourcesModifiedAfter(any(), eq(0L), any())).willReturn(List.of(source(3L, "학식 쿠폰 거래", "학식 쿠폰 팝니다")));
+        given(postRepository.findSearchSourcesAfterId(eq(3L), any())).willReturn(List.of(source(4L, "도서관 학식", "같이 가요")));
+
+        //when
+        restored.load();
+
+        //then
+        assertThat(restored.size()).isEqualTo(3);
+        assertThat(restored.search("학식", 10)).extracting(PostSearchIndex.Hit::getPostId).containsExactlyInAnyOrder(1L, 3L, 4L);
+        assertThat(restored.search("전공책", 10)).isEmpty();
+        assertThat(restored.search("도서관", 10)).extracting(PostSearchIndex.Hit::getPostId).containsExactly(4L);
+
+        ArgumentCaptor<LocalDateTime> since = ArgumentCaptor.forClass(LocalDateTime.class);
+        then(postRepository).should().findSearchSourcesModifiedAfter(since.capture(), eq(0L), any());
+        assertThat(since.getValue()).isBefore(LocalDateTime.now());
+    }
+
+    @Test
+    void load_ifSnapshotIsTruncated_reloadsFromDatabase() throws Exception {
+        //given 쓰다 만 스냅샷
+        postSearchIndex.writeSnapshot();
+        Path snapshot = tempDir.resolve("index.snapshot");
+        byte[] bytes = Files.readAllBytes(snapshot);
+        Files.write(snapshot, Arrays.copyOf(bytes, bytes.length / 2));
+        PostSearchIndex restored = new PostSearchIndex(postRepository, new SimpleMeterRegistry(), snapshot.toString(), 86400000, 1000);
+        given(postRepository.findSearchSourcesAfterId(eq(0L), any())).willReturn(List.of(source(2L, "도서관 자리", "학식 먹고 도서관 가실 분")));
+
+        //when
+        restored.load();
+
+        //then 스냅샷에서 읽다 만 글은 남지 않고 DB 내용만 색인된다.
+        assertThat(restored.size()).isEqualTo(1);
+        assertThat(restored.search("학식", 10)).extracting(PostSearchIndex.Hit::getPostId).containsExactly(2L);
+    }
+
+    private static PostSearchSource source(long id, String title, String content) {
+        return new PostSearchSource() {
+            @Override
+            public long getId() {
+                return id;
+            }
+
+            @Override
+            public String getTitle() {
+                return title;
+            }
+
+            @Override
+            public String getContent() {
+                return content;
+            }
+        };
+    }
+}
@@ -8,19 +8,30 @@ import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.security.access.AccessDeniedException;
 import sungshin.sooon.domain.entity.Account;
+import sungshin.sooon.domain.entity.ImageVariant;
 import sungshin.sooon.domain.entity.Post;
-import sungshin.sooon.domain.repository.PostLikeRepository;
+import sungshin.sooon.domain.repository.ImageVariantRepository;
+import sungshin.sooon.domain.repository.PostImageSource;
+import sungshin.sooon.domain.repository.PostImagesRepository;
 import sungshin.sooon.domain.repository.PostRepository;
+import sungshin.sooon.dto.PagingPostResponseDto;
+import sungshin.sooon.dto.PostImageResponseDto;
 import sungshin.sooon.dto.PostRequestDto;
 import sungshin.sooon.dto.PostResponseDto;
+import sungshin.sooon.exception.AlreadyExistsException;
 import sungshin.sooon.exception.NotFoundException;
 
 import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.assertj.core.api.AssertionsForClassTypes.assertThat;
 import static org.assertj.core.api.AssertionsForClassTypes.assertThatThrownBy;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
@@ -36,14 +47,35 @@ class PostServiceTest {
     //private AutoCloseable autoCloseable; @ExtendWith(MockitoExtension.class)로 대체
 
     @Mock
-    private PostLikeRepository postLikeRepository;
+    private FeedPageCache feedPageCache;
+
+    @Mock
+    private TrendingPostRanking trendingPostRanking;
+
+    @Mock
+    private PostLikeBuffer postLikeBuffer;
+
+    @Mock
+    private PostLikeIndex postLikeIndex;
+
+    @Mock
+    private CommentThreadCache commentThreadCache;
+
+    @Mock
+    private PostSearchIndex postSearchIndex;
+
+    @Mock
+    private PostImagesRepository postImagesRepository;
+
+    @Mock
+    private ImageVariantRepository imageVariantRepository;
 
     @BeforeEach
     void setUp() {
         /* @ExtendWith(MockitoExtension.class)로 대체
         autoCloseable = MockitoAnnotations.openMocks(this); //이 클래스의 모든 Mock 초기화
         */
-        postService = new PostService(postRepository, postLikeRepository);
+        postService = new PostService(postRepository, feedPageCache, trendingPostRanking, postLikeBuffer, postLikeIndex, commentThreadCache, postSearchIndex, postImagesRepository, imageVariantRepository);
     }
 
     /* @ExtendWith(MockitoExtension.class)로 대체
@@ -63,7 +95,7 @@ class PostServiceTest {
         postService.findAllByAccount(account);
 
         //then
-        verify(postRepository).findAllByAccountOrderByCreatedAtDesc(account);
+        verify(postRepository).findAllSummaryByAccountId(1L);
     }
 
     @Test
@@ -97,6 +129,29 @@ class PostServiceTest {
         assertThat(resultDto).isEqualTo(wantedDto);
     }
 
+    @Test
+    void findById_attachesImageVariants() {
+        //given 첫 번째 이미지는 축소본이 만들어졌고, 두 번째는 아직이다.
+        Long id = 2L;
+        Account account = Account.builder().id(1L).email("chaeppy@sswu.community").password("tempPassword123").nickname("채피").registeredDateTime(LocalDateTime.now()).build();
+        Post post = Post.builder().id(id).title("포스트 테스트").content("포스트 테스트 입니다").isAnonymous(false).build();
+        post.setAccount(account);
+        given(postRepository.findById(id)).willReturn(Optional.of(post));
+        given(postImagesRepository.findAllByPostIdIn(List.of(id))).willReturn(List.of(image(id, "/images/static/a.jpg"), image(id, "/images/static/b.jpg")));
+        given(imageVariantRepository.findByOriginalUrlIn(Set.of("/images/static/a.jpg", "/images/static/b.jpg"))).willReturn(List.of(
+                ImageVariant.builder().originalUrl("/images/static/a.jpg").width(480).url("/images/static/a_w480.jpg").build(),
+                ImageVariant.builder().originalUrl("/images/static/a.jpg").width(160).url("/images/static/a_w160.jpg").build()));
+
+        //when
+        PostResponseDto resultDto = postService.findById(id);
+
+        //then 이미지는 orderNum 순서(쿼리 순서) 그대로, 축소본은 폭 오름차순
+        assertThat(resultDto.getImages()).isEqualTo(List.of(
+                PostImageResponseDto.builder().url("/images/static/a.jpg").variants(Map.of(160, "/images/static/a_w160.jpg", 480, "/images/static/a_w480.jpg")).build(),
+                PostImageResponseDto.builder().url("/images/static/b.jpg").variants(Map.of()).build()));
+        assertThat(List.copyOf(resultDto.getImages().get(0).getVariants().keySet())).isEqualTo(List.of(160, 480));
+    }
+
     @Test
     void save() {
         //given
@@ -105,7 +160,7 @@ class PostServiceTest {
         Post post = postRequestDto.toPost();
         post.setAccount(account);
 
-        given(postRepository.save(post)).willReturn(post); //실제 레포지토리를 쓰는 것이 아니기때문에 얘가 return하는 것을 지정해줘야함.
+        given(postRepository.save(any(Post.class))).willAnswer(invocation -> invocation.getArgument(0)); //실제 레포지토리를 쓰는 것이 아니기때문에 얘가 return하는 것을 지정해줘야함.
 
         //when
         postService.save(account, postRequestDto);
@@ -114,7 +169,8 @@ class PostServiceTest {
         ArgumentCaptor<Post> postArgumentCaptor = ArgumentCaptor.forClass(Post.class); //내가 save하길 원한 객체랑 실제 service에서 save할 때의 아규먼트인 객체랑 비교해서 원하는 값 그대로 save하는지 테스트.
         verify(postRepository).save(postArgumentCaptor.capture()); //레포지토리.save할때 들어와있는 파라미터를 캡쳐한다. 원래는 getId가 무슨 값을 반환하는지 까지 테스트해야되지만 그건 jpa의 영역임.. 내가 id를 세팅할 순 없다. 다만 save할 때 똑같은 객체가 들어가는지만 검증한다.
         Post capturedPost = postArgumentCaptor.getValue(); //캡쳐한 밸류를 반환받음
-        assertThat(capturedPost).isEqualTo(post); //객체 비교를 위해서 @EqualsAndHashcode 필요
+        // Post.equals 는 id 로만 비교하고 저장 전(id 0)인 글은 자기 자신과만 같다. 서비스가 새로 만든 객체이므로 equals 대신 필드 값으로 비교한다.
+        assertThat(capturedPost).usingRecursiveComparison().isEqualTo(post); //필드 값 비교
     }
 
     @Test
@@ -168,4 +224,95 @@ class PostServiceTest {
         verify(postRepository, never()).delete(any());
     }
 
-}
\ No newline at end of file
+
+    @Test
+    void saveLike_ifNotLikedYet() {
+        //given
+        Account account = Account.builder().id(1L).email("chaeppy@sswu.community").password("tempPassword123").nickname("채피").registeredDateTime(LocalDateTime.now()).build();
+        given(postRepository.existsById(2L)).willReturn(true);
+        given(postLikeBuffer.findPendingState(1L, 2L)).willReturn(null); // 대기 중인 요청 없음 (Mockito 기본값은 false)
+        given(postLikeIndex.contains(2L, 1L)).willReturn(false);
+
+        //when
+        postService.saveLike(account, 2L);
+
+        //then
+        verify(postLikeBuffer).like(1L, 2L);
+    }
+
+    @Test
+    void saveLike_ifAlreadyLiked() {
+        //given
+        Account account = Account.builder().id(1L).email("chaeppy@sswu.community").password("tempPassword123").nickname("채피").registeredDateTime(LocalDateTime.now()).build();
+        given(postLikeIndex.isLoaded(2L)).willReturn(true); // 비트맵이 있으면 글 존재 여부를 DB 에 묻지 않는다.
+        given(postLikeBuffer.findPendingState(1L, 2L)).willReturn(null); // 대기 중인 요청 없음 (Mockito 기본값은 false)
+        given(postLikeIndex.contains(2L, 1L)).willReturn(true);
+
+        //when
+        //then
+        assertThatThrownBy(() -> postService.saveLike(account, 2L)).isInstanceOf(AlreadyExistsException.class).hasMessageContaining("이미 좋아요한 게시글입니다.");
+        verify(postLikeBuffer, never()).like(anyLong(), anyLong());
+    }
+
+    @Test
+    void saveLike_ifUnlikePending() {
+        //given 아직 DB 에 반영되지 않은 취소 요청이 있으면 비트맵보다 우선한다.
+        Account account = Account.builder().id(1L).email("chaeppy@sswu.community").password("tempPassword123").nickname("채피").registeredDateTime(LocalDateTime.now()).build();
+        given(postLikeIndex.isLoaded(2L)).willReturn(true);
+        given(postLikeBuffer.findPendingState(1L, 2L)).willReturn(false);
+
+        //when
+        postService.saveLike(account, 2L);
+
+        //then
+        verify(postLikeIndex, never()).contains(anyLong(), anyLong());
+        verify(postLikeBuffer).like(1L, 2L);
+    }
+
+    @Test
+    void saveLike_ifPostDoesNotExists() {
+        //given
+        Account account = Account.builder().id(1L).email("chaeppy@sswu.community").password("tempPassword123").nickname("채피").registeredDateTime(LocalDateTime.now()).build();
+        given(postRepository.existsById(2L)).willReturn(false);
+
+        //when
+        //then
+        assertThatThrownBy(() -> postService.saveLike(account, 2L)).isInstanceOf(NotFoundException.class).hasMessageContaining("게시글이 존재하지 않습니다.");
+        verify(postLikeBuffer, never()).like(anyLong(), anyLong());
+    }
+
+    @Test
+    void markLikedByMe_appliesPendingStateOverIndex() {
+        //given 1: DB 에 좋아요, 2: DB 에 좋아요 + 취소 대기 중, 3: 좋아요 대기 중
+        Account account = Account.builder().id(1L).email("chaeppy@sswu.community").password("tempPassword123").nickname("채피").registeredDateTime(LocalDateTime.now()).build();
+        PagingPostResponseDto page = PagingPostResponseDto.builder()
+                .posts(List.of(PostResponseDto.builder().id(1L).build(), PostResponseDto.builder().id(2L).build(), PostResponseDto.builder().id(3L).build()))
+                .build();
+        given(postLikeIndex.findLikedPostIds(1L, List.of(1L, 2L, 3L))).willReturn(new HashSet<>(Set.of(1L, 2L)));
+        given(postLikeBuffer.findPendingState(1L, 1L)).willReturn(null);
+        given(postLikeBuffer.findPendingState(1L, 2L)).willReturn(false);
+        given(postLikeBuffer.findPendingState(1L, 3L)).willReturn(true);
+
+        //when
+        postService.markLikedByMe(account, page);
+
+        //then
+        assertThat(page.getPosts().get(0).getLikedByMe()).isTrue();
+        assertThat(page.getPosts().get(1).getLikedByMe()).isFalse();
+        assertThat(page.getPosts().get(2).getLikedByMe()).isTrue();
+    }
+
+    private static PostImageSource image(long postId, String imageUrl) {
+        return new PostImageSource() {
+            @Override
+            public long getPostId() {
+                return postId;
+            }
+
+            @Override
+            public String getImageUrl() {
+                return imageUrl;
+            }
+        };
+    }
+}
@@ -0,0 +1,77 @@
+package sungshin.sooon.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import sungshin.sooon.domain.repository.RefreshTokenRepository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@ExtendWith(MockitoExtension.class)
+class RefreshTokenStoreTest {
+    private static final String EMAIL = "chaeppy@sswu.community";
+
+    @Mock
+    private RefreshTokenRepository refreshTokenRepository;
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private RefreshTokenStore refreshTokenStore;
+
+    @BeforeEach
+    void setUp() {
+        refreshTokenStore = new RefreshTokenStore(refreshTokenRepository, jdbcTemplate, transactionManager, new SimpleMeterRegistry(), 500);
+    }
+
+    @Test
+    void rotate_invalidatesPreviousToken() {
+        //given
+        long expiresAt = System.currentTimeMillis() + 60_000;
+        refreshTokenStore.save(EMAIL, "token-1", expiresAt);
+
+        //when
+        boolean rotated = refreshTokenStore.rotate(EMAIL, "token-1", "token-2", expiresAt);
+
+        //then 새 토큰으로는 갱신된다.
+        assertThat(rotated).isTrue();
+        assertThat(refreshTokenStore.rotate(EMAIL, "token-2", "token-3", expiresAt)).isTrue();
+
+        //then 이전 토큰으로는 안 되고, 재사용으로 보고 그 뒤에 발급된 token-3 까지 폐기된다.
+        assertThat(refreshTokenStore.rotate(EMAIL, "token-1", "token-4", expiresAt)).isFalse();
+        assertThat(refreshTokenStore.rotate(EMAIL, "token-3", "token-5", expiresAt)).isFalse();
+    }
+
+    @Test
+    void rotate_ifReused_revokesAccount() {
+        //given
+        long expiresAt = System.currentTimeMillis() + 60_000;
+        refreshTokenStore.save(EMAIL, "token-1", expiresAt);
+        refreshTokenStore.rotate(EMAIL, "token-1", "token-2", expiresAt);
+
+        //when 이미 회전된 token-1 을 다시 사용
+        boolean reused = refreshTokenStore.rotate(EMAIL, "token-1", "token-3", expiresAt);
+
+        //then 최신 토큰(token-2)까지 폐기된다.
+        assertThat(reused).isFalse();
+        assertThat(refreshTokenStore.rotate(EMAIL, "token-2", "token-4", expiresAt)).isFalse();
+    }
+
+    @Test
+    void rotate_ifExpired() {
+        //given
+        refreshTokenStore.save(EMAIL, "token-1", System.currentTimeMillis() - 1);
+
+        //when
+        //then
+        assertThat(refreshTokenStore.rotate(EMAIL, "token-1", "token-2", System.currentTimeMillis() + 60_000)).isFalse();
+    }
+}
@@ -0,0 +1,174 @@
+package sungshin.sooon.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import sungshin.sooon.domain.repository.PostRepository;
+import sungshin.sooon.domain.repository.TrendingCandidate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+
+@ExtendWith(MockitoExtension.class)
+class TrendingPostRankingTest {
+
+    @Mock
+    private PostRepository postRepository;
+
+    @Mock
+    private FeedPageCache feedPageCache;
+
+    private TrendingPostRanking trendingPostRanking;
+
+    @BeforeEach
+    void setUp() {
+        trendingPostRanking = new TrendingPostRanking(postRepository, feedPageCache, 3, 1.5, 7, 5000);
+    }
+
+    @Test
+    void likeChanged_raisesRank() {
+        //given 같은 시각에 쓴 글. 좋아요 수 순서
+        LocalDateTime createdAt = LocalDateTime.now().minusHours(1);
+        given(postRepository.findTrendingCandidates(any(), any())).willReturn(List.of(
+                candidate(1L, 10, 0, createdAt), candidate(2L, 9, 0, createdAt), candidate(3L, 0, 0, createdAt)));
+        trendingPostRanking.rescore();
+
+        //when 트랜잭션 밖이라 바로 반영된다.
+        trendingPostRanking.likeChangedAfterCommit(2L, 1);
+        trendingPostRanking.likeChangedAfterCommit(2L, 1);
+
+        //then 좋아요를 받은 글은 올라가고, 건드리지 않은 글의 순서는 그대로다.
+        assertThat(trendingPostRanking.findPostIds(0, 10)).containsExactly(2L, 1L, 3L);
+    }
+
+    @Test
+    void commentChanged_equalCountsKeepIdOrder() {
+        //given
+        LocalDateTime createdAt = LocalDateTime.now().minusHours(5);
+        given(postRepository.findTrendingCandidates(any(), any())).willReturn(List.of(
+                candidate(1L, 2, 0, createdAt), candidate(2L, 0, 0, createdAt)));
+        trendingPostRanking.rescore();
+
+        //when 댓글 1개 = 좋아요 2개
+        trendingPostRanking.commentChangedAfterCommit(2L, 1);
+
+        //then 점수가 같으면 최신 id 가 앞
+        assertThat(trendingPostRanking.findPostIds(0, 10)).containsExactly(2L, 1L);
+    }
+
+    @Test
+    void postCreated_evictsLowestAtCapacity() {
+        //given capacity 3 인데 후보 4개. 가장 낮은 4번은 처음부터 빠진다.
+        LocalDateTime recent = LocalDateTime.now().minusHours(1);
+        given(postRepository.findTrendingCandidates(any(), any())).willReturn(List.of(
+                candidate(1L, 10, 0, recent), candidate(2L, 5, 0, recent),
+                candidate(3L, 0, 0, LocalDateTime.now().minusDays(3)), candidate(4L, 0, 0, LocalDateTime.now().minusDays(6))));
+        trendingPostRanking.rescore();
+        assertThat(trendingPostRanking.findPostIds(0, 10)).containsExactly(1L, 2L, 3L);
+
+        //when 방금 쓴 글은 3일 지난 글보다 점수가 높다.
+        trendingPostRanking.postCreatedAfterCommit(5L, LocalDateTime.now());
+
+        //then
+        assertThat(trendingPostRanking.findPostIds(0, 10)).containsExactly(1L, 2L, 5L);
+
+        //when 순위 밖의 글에 좋아요가 와도 다음 재계산 전까지는 들어오지 않는다.
+        trendingPostRanking.likeChangedAfterCommit(3L, 100);
+        assertThat(trendingPostRanking.findPostIds(0, 10)).containsExactly(1L, 2L, 5L);
+    }
+
+    @Test
+    void rescore_replacesRanking() {
+        //given
+        LocalDateTime createdAt = LocalDateTime.now().minusHours(1);
+        given(postRepository.findTrendingCandidates(any(), any()))
+                .willReturn(List.of(candidate(1L, 10, 0, createdAt), candidate(2L, 5, 0, createdAt)))
+                .willReturn(List.of(candidate(2L, 20, 0, createdAt), candidate(3L, 1, 0, createdAt)));
+        trendingPostRanking.rescore();
+
+        //when
+        trendingPostRanking.rescore();
+
+        //then 예전 순위의 글(1번)은 남지 않는다.
+        assertThat(trendingPostRanking.findPostIds(0, 10)).containsExactly(2L, 3L);
+        assertThat(trendingPostRanking.findPostIds(1, 10)).containsExactly(3L);
+    }
+
+    @Test
+    void rescore_replaysEventsDuringRescore() {
+        //given 후보를 조회한 직후(교체 전)에 좋아요와 삭제가 들어온다.
+        LocalDateTime createdAt = LocalDateTime.now().minusHours(1);
+        given(postRepository.findTrendingCandidates(any(), any())).willAnswer(invocation -> {
+            List<TrendingCandidate> candidates = List.of(candidate(1L, 10, 0, createdAt), candidate(2L, 9, 0, createdAt), candidate(3L, 0, 0, createdAt));
+            trendingPostRanking.likeChangedAfterCommit(2L, 5);
+            trendingPostRanking.postDeletedAfterCommit(3L);
+            return candidates;
+        });
+
+        //when
+        trendingPostRanking.rescore();
+
+        //then
+        assertThat(trendingPostRanking.findPostIds(0, 10)).containsExactly(2L, 1L);
+    }
+
+    @Test
+    void rescore_replayedPostCreatedKeepsLoadedCounts() {
+        //given 재계산 조회 직전에 쓴 글(4번)이 조회 결과에 좋아요와 함께 이미 들어 있고, 작성 이벤트는 재적용된다.
+        LocalDateTime createdAt = LocalDateTime.now().minusHours(1);
+        given(postRepository.findTrendingCandidates(any(), any())).willAnswer(invocation -> {
+            trendingPostRanking.postCreatedAfterCommit(4L, LocalDateTime.now());
+            return List.of(candidate(1L, 10, 0, createdAt), candidate(4L, 30, 0, LocalDateTime.now()));
+        });
+
+        //when
+        trendingPostRanking.rescore();
+
+        //then 4번의 좋아요 30개가 0 으로 덮이지 않는다.
+        assertThat(trendingPostRanking.findPostIds(0, 10)).containsExactly(4L, 1L);
+    }
+
+    @Test
+    void rescore_keepsOlderPostWithHighEngagement() {
+        //given 최신 글 목록에는 없지만(글이 많은 주) 반응이 많은 5일 전 글
+        given(postRepository.findTrendingCandidates(any(), any())).willReturn(List.of(candidate(1L, 0, 0, LocalDateTime.now().minusHours(1))));
+        given(postRepository.findTrendingCandidatesByEngagement(any(), any())).willReturn(List.of(
+                candidate(9L, 1000, 0, LocalDateTime.now().minusDays(5)), candidate(1L, 0, 0, LocalDateTime.now().minusHours(1))));
+
+        //when
+        trendingPostRanking.rescore();
+
+        //then 두 목록을 합치고 같은 글은 한 번만 센다.
+        assertThat(trendingPostRanking.findPostIds(0, 10)).containsExactly(9L, 1L);
+    }
+
+    private static TrendingCandidate candidate(long id, long likeCount, long commentCount, LocalDateTime createdAt) {
+        return new TrendingCandidate() {
+            @Override
+            public long getId() {
+                return id;
+            }
+
+            @Override
+            public long getLikeCount() {
+                return likeCount;
+            }
+
+            @Override
+            public long getCommentCount() {
+                return commentCount;
+            }
+
+            @Override
+            public LocalDateTime getCreatedAt() {
+                return createdAt;
+            }
+        };
+    }
+}
@@ -0,0 +1,32 @@
+package sungshin.sooon.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BloomFilterTest {
+
+    @Test
+    void mightContain_noFalseNegativeAndFppWithinBound() {
+        //given
+        BloomFilter bloomFilter = new BloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            bloomFilter.put("user" + i + "@sswu.community");
+        }
+
+        //when
+        int falsePositives = 0;
+        for (int i = 10_000; i < 20_000; i++) {
+            if (bloomFilter.mightContain("user" + i + "@sswu.community")) {
+                falsePositives++;
+            }
+        }
+
+        //then 넣은 값은 전부 있다고 답하고, 넣지 않은 값의 오탐률은 목표(1%) 근처다.
+        for (int i = 0; i < 10_000; i++) {
+            assertThat(bloomFilter.mightContain("user" + i + "@sswu.community")).isTrue();
+        }
+        assertThat(falsePositives / 10_000.0).isLessThan(0.02);
+        assertThat(bloomFilter.expectedFpp()).isLessThan(0.02);
+    }
+}
@@ -0,0 +1,36 @@
+package sungshin.sooon.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LocalImageStorageTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void upload_writesFilesUnderRootDir() throws IOException {
+        //given 청크(4 bytes)보다 큰 파일
+        LocalImageStorage localImageStorage = new LocalImageStorage(tempDir.toString(), "/images", 4);
+        MockMultipartFile image = new MockMultipartFile("files", "../../cat.JPG", "image/jpeg", "0123456789".getBytes());
+
+        //when
+        List<String> urls = localImageStorage.upload(List.of(image, image), "static").stream().map(StoredImage::getUrl).collect(Collectors.toList());
+
+        //then 클라이언트 파일 이름은 쓰지 않고 확장자만 남긴다.
+        assertThat(urls).hasSize(2).allMatch(url -> url.startsWith("/images/static/") && url.endsWith(".jpg"));
+        assertThat(urls.get(0)).isNotEqualTo(urls.get(1));
+        Path saved = localImageStorage.resolve(urls.get(0).substring("/images/".length()));
+        assertThat(Files.readAllBytes(saved)).isEqualTo("0123456789".getBytes());
+        assertThat(localImageStorage.resolve("../outside.jpg")).isNull();
+    }
+}